@@ -1,5 +1,6 @@
 plugins {
     id("org.openrewrite.build.recipe-library") version "latest.release"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "org.openrewrite.recipe"
@@ -10,11 +11,76 @@ dependencies {
     implementation(platform("org.openrewrite:rewrite-bom:$rewriteVersion"))
     implementation("org.openrewrite:rewrite-json")
     implementation("org.openrewrite:rewrite-core")
+    implementation("io.micrometer:micrometer-core:1.9.17")
 
     implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-csv")
     implementation("com.fasterxml.jackson.datatype:jackson-datatype-jsr310")
 
     testImplementation("org.openrewrite:rewrite-test:${rewriteVersion}")
+
+    jmh("org.openjdk.jmh:jmh-core:1.37")
+    jmhAnnotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+}
+
+jmh {
+    fork.set(1)
+    // the benchmarks generate their lockfiles with the test sources' LockfileGenerator
+    includeTests.set(true)
+    warmupIterations.set(3)
+    iterations.set(5)
+    profilers.add("gc")
+}
+
+// Flight Recorder events are only available from Java 11 on, so the classes recording them are compiled separately
+// and packaged as a multi-release jar, leaving Java 8 with the main source set's classes that record nothing
+val java11 by sourceSets.creating {
+    java.setSrcDirs(listOf("src/main/java11"))
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+}
+tasks.named<JavaCompile>(java11.compileJavaTaskName) {
+    options.release.set(11)
+}
+tasks.jar {
+    into("META-INF/versions/11") {
+        from(java11.output)
+    }
+    manifest {
+        attributes("Multi-Release" to "true")
+    }
+}
+sourceSets.test {
+    // tests run on a JDK that would load the Java 11 classes from the jar, so they take precedence here too
+    runtimeClasspath = java11.output + runtimeClasspath
+}
+
+// the performance budgets time the hot paths, which only makes sense on a quiet machine
+tasks.test {
+    useJUnitPlatform {
+        excludeTags("performance")
+    }
+}
+val performanceTest by tasks.registering(Test::class) {
+    description = "Checks the hot paths against their allocation and time budgets."
+    group = "verification"
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    useJUnitPlatform {
+        includeTags("performance")
+    }
+}
+
+val advisoryIndexDir = layout.buildDirectory.dir("generated/resources/advisories")
+val compileAdvisoryIndex by tasks.registering(JavaExec::class) {
+    description = "Compiles advisories-npm.csv into the binary index that is loaded at runtime."
+    val csv = file("src/main/resources/advisories-npm.csv")
+    inputs.file(csv)
+    outputs.dir(advisoryIndexDir)
+    classpath = sourceSets.main.get().output.classesDirs + configurations.runtimeClasspath.get()
+    mainClass.set("org.openrewrite.nodejs.internal.AdvisoryIndexCompiler")
+    args(csv.absolutePath, advisoryIndexDir.get().file("advisories-npm.idx").asFile.absolutePath)
+}
+sourceSets.main {
+    resources.srcDir(compileAdvisoryIndex)
 }
 
 configure<PublishingExtension> {
@@ -36,4 +102,5 @@ publishing {
 
 license {
     exclude("**/*.json")
+    exclude("**/*.idx")
 }
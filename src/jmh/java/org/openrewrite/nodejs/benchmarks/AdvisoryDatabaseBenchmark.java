@@ -0,0 +1,61 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.nodejs.DependencyVulnerabilityCheck;
+import org.openrewrite.nodejs.internal.AdvisoryDatabase;
+
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class AdvisoryDatabaseBenchmark {
+    DependencyVulnerabilityCheck recipe = new DependencyVulnerabilityCheck(null);
+    ExecutionContext ctx = new InMemoryExecutionContext();
+
+    /**
+     * The first recipe run of a JVM, which has to load the advisories.
+     */
+    @Benchmark
+    public DependencyVulnerabilityCheck.Accumulator initialValueCold() {
+        AdvisoryDatabase.release();
+        return recipe.getInitialValue(ctx);
+    }
+
+    @Benchmark
+    public DependencyVulnerabilityCheck.Accumulator initialValueWarm() {
+        return recipe.getInitialValue(ctx);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(AdvisoryDatabaseBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(opt).run();
+    }
+}
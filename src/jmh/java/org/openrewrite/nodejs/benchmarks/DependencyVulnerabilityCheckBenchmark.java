@@ -0,0 +1,89 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.LargeSourceSet;
+import org.openrewrite.RecipeRun;
+import org.openrewrite.SourceFile;
+import org.openrewrite.internal.InMemoryLargeSourceSet;
+import org.openrewrite.json.JsonParser;
+import org.openrewrite.nodejs.DependencyVulnerabilityCheck;
+import org.openrewrite.nodejs.LockfileGenerator;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Full recipe runs, from scanning the lockfile through generating the report to upgrading the package.json.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class DependencyVulnerabilityCheckBenchmark {
+    @Param({"1000", "10000", "100000"})
+    int packages;
+
+    /**
+     * The packages are spread over this many projects, each with a lockfile of its own.
+     */
+    @Param({"1", "500"})
+    int projects;
+
+    DependencyVulnerabilityCheck recipe = new DependencyVulnerabilityCheck(null);
+    List<SourceFile> sourceFiles;
+
+    @Setup
+    public void setup() {
+        JsonParser parser = JsonParser.builder().build();
+        sourceFiles = new ArrayList<>();
+        Map<Path, String> files = new LockfileGenerator(42)
+                .packages(Math.max(1, packages / projects))
+                .generateRepository(projects);
+        for (Map.Entry<Path, String> file : files.entrySet()) {
+            sourceFiles.addAll(parser.parse(file.getValue())
+                    .map(sf -> sf.<SourceFile>withSourcePath(file.getKey()))
+                    .collect(toList()));
+        }
+    }
+
+    @Benchmark
+    public RecipeRun run() {
+        LargeSourceSet sourceSet = new InMemoryLargeSourceSet(sourceFiles);
+        return recipe.run(sourceSet, new InMemoryExecutionContext());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(DependencyVulnerabilityCheckBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(opt).run();
+    }
+}
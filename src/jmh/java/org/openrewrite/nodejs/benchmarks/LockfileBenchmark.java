@@ -0,0 +1,70 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openrewrite.json.JsonParser;
+import org.openrewrite.json.tree.Json;
+import org.openrewrite.nodejs.LockfileGenerator;
+import org.openrewrite.nodejs.NodeResolutionResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class LockfileBenchmark {
+    @Param({"1000", "10000", "100000"})
+    int packages;
+
+    byte[] lockfile;
+    Json.Document document;
+
+    @Setup
+    public void setup() {
+        String json = new LockfileGenerator(42).packages(packages).generate("example").getPackageLockJson();
+        lockfile = json.getBytes(StandardCharsets.UTF_8);
+        document = (Json.Document) JsonParser.builder().build().parse(json).findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unable to parse lockfile"));
+    }
+
+    @Benchmark
+    public NodeResolutionResult streamFromBytes() {
+        return NodeResolutionResult.fromPackageLockJson(new ByteArrayInputStream(lockfile));
+    }
+
+    @Benchmark
+    public NodeResolutionResult readFromLst() {
+        return NodeResolutionResult.fromPackageLockJson(document);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(LockfileBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openrewrite.nodejs.internal.StaticVersionComparator;
+import org.openrewrite.nodejs.internal.Version;
+import org.openrewrite.nodejs.internal.VersionParser;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class VersionBenchmark {
+    private static final int VERSIONS = 1024;
+
+    /**
+     * More distinct versions than the parser's cache holds, so that cycling through them misses the cache every time.
+     */
+    private static final int UNCACHED_VERSIONS = 1 << 18;
+
+    VersionParser versionParser = new VersionParser();
+    StaticVersionComparator comparator = new StaticVersionComparator();
+
+    String[] sources = new String[VERSIONS];
+    Version[] versions = new Version[VERSIONS];
+
+    String[] uncachedSources = new String[UNCACHED_VERSIONS];
+    int nextUncached;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        for (int i = 0; i < VERSIONS; i++) {
+            String source = random.nextInt(20) + "." + random.nextInt(30) + "." + random.nextInt(50);
+            // a share of versions with qualifiers, which can't take the packed fast path
+            if (i % 8 == 0) {
+                source += random.nextBoolean() ? "-rc." + random.nextInt(5) : "-beta" + random.nextInt(5);
+            }
+            sources[i] = source;
+            versions[i] = versionParser.transform(source);
+        }
+        for (int i = 0; i < UNCACHED_VERSIONS; i++) {
+            String source = (i >>> 12) + "." + (i >>> 6 & 63) + "." + (i & 63);
+            if (i % 8 == 0) {
+                source += "-rc." + (i >>> 3 & 3);
+            }
+            uncachedSources[i] = source;
+        }
+    }
+
+    /**
+     * Versions as a lockfile repeats them, parsed once and then taken from the cache.
+     */
+
+    @Benchmark
+    @OperationsPerInvocation(VERSIONS)
+    public void transform(Blackhole blackhole) {
+        for (String source : sources) {
+            blackhole.consume(versionParser.transform(source));
+        }
+    }
+
+    /**
+     * Versions seen for the first time, parsed and added to the cache, evicting another.
+     */
+    @Benchmark
+    @OperationsPerInvocation(VERSIONS)
+    public void transformUncached(Blackhole blackhole) {
+        for (int i = 0; i < VERSIONS; i++) {
+            blackhole.consume(versionParser.transform(uncachedSources[nextUncached]));
+            nextUncached = (nextUncached + 1) & (UNCACHED_VERSIONS - 1);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VERSIONS)
+    public void compare(Blackhole blackhole) {
+        for (int i = 0; i < VERSIONS; i++) {
+            blackhole.consume(comparator.compare(versions[i], versions[(i * 31 + 7) & (VERSIONS - 1)]));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(VersionBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build();
+        new Runner(opt).run();
+    }
+}
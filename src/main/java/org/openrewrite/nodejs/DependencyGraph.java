@@ -0,0 +1,342 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * A compact, immutable form of a resolved dependency graph, in which every installed package is identified by
+ * an int and requirements are stored as primitive arrays in compressed sparse row layout. Traversals over it,
+ * whether along requirements or back along the packages requiring a package, don't allocate.
+ * <p>
+ * Node {@link #ROOT} is the project itself. Every other node is an installed package, numbered in breadth-first
+ * order from the project, so that nodes appear in order of their depth. Names and versions are interned, and
+ * names are numbered in sorted order.
+ */
+public class DependencyGraph {
+    public static final int ROOT = 0;
+
+    private final ResolvedDependency[] resolved;
+    private final int[] depths;
+
+    private final String[] names;
+    private final int[] nameIds;
+    private final String[] versions;
+    private final int[] versionIds;
+
+    /**
+     * The requirements of node {@code n} are {@code targets[offsets[n]]} through {@code targets[offsets[n + 1] - 1]}.
+     */
+    private final int[] offsets;
+    private final int[] targets;
+
+    private final int[] reverseOffsets;
+    private final int[] sources;
+
+    /**
+     * The nodes installed under name {@code i} are {@code nodesByName[nameOffsets[i]]} through
+     * {@code nodesByName[nameOffsets[i + 1] - 1]}.
+     */
+    private final int[] nameOffsets;
+    private final int[] nodesByName;
+
+    /**
+     * An open addressing table of every node but the {@link #ROOT}, by the identity hash code of the package it
+     * stands for, so that a package can be looked up without a map of boxed node numbers. Empty slots hold
+     * the {@link #ROOT}.
+     */
+    private final int[] nodeTable;
+
+    private DependencyGraph(ResolvedDependency[] resolved, int[] depths, int[] offsets, int[] targets) {
+        int nodeCount = resolved.length;
+        this.resolved = resolved;
+        this.depths = depths;
+        this.offsets = offsets;
+        this.targets = targets;
+
+        SortedSet<String> distinctNames = new TreeSet<>();
+        Map<String, Integer> versionIdsByVersion = new HashMap<>();
+        List<String> distinctVersions = new ArrayList<>();
+        this.versionIds = new int[nodeCount];
+        versionIds[ROOT] = -1;
+        for (int n = 1; n < nodeCount; n++) {
+            distinctNames.add(resolved[n].getName());
+            String version = resolved[n].getVersion();
+            if (version == null) {
+                versionIds[n] = -1;
+            } else {
+                Integer id = versionIdsByVersion.get(version);
+                if (id == null) {
+                    id = distinctVersions.size();
+                    versionIdsByVersion.put(version, id);
+                    distinctVersions.add(version);
+                }
+                versionIds[n] = id;
+            }
+        }
+        this.names = distinctNames.toArray(new String[0]);
+        this.versions = distinctVersions.toArray(new String[0]);
+
+        this.nameIds = new int[nodeCount];
+        nameIds[ROOT] = -1;
+        this.nameOffsets = new int[names.length + 1];
+        for (int n = 1; n < nodeCount; n++) {
+            nameIds[n] = Arrays.binarySearch(names, resolved[n].getName());
+            nameOffsets[nameIds[n] + 1]++;
+        }
+        for (int i = 0; i < names.length; i++) {
+            nameOffsets[i + 1] += nameOffsets[i];
+        }
+        this.nodesByName = new int[nodeCount - 1];
+        int[] next = Arrays.copyOf(nameOffsets, names.length);
+        for (int n = 1; n < nodeCount; n++) {
+            nodesByName[next[nameIds[n]]++] = n;
+        }
+
+        this.reverseOffsets = new int[nodeCount + 1];
+        for (int e = 0; e < offsets[nodeCount]; e++) {
+            reverseOffsets[targets[e] + 1]++;
+        }
+        for (int n = 0; n < nodeCount; n++) {
+            reverseOffsets[n + 1] += reverseOffsets[n];
+        }
+        this.sources = new int[offsets[nodeCount]];
+        next = Arrays.copyOf(reverseOffsets, nodeCount);
+        for (int n = 0; n < nodeCount; n++) {
+            for (int e = offsets[n]; e < offsets[n + 1]; e++) {
+                sources[next[targets[e]]++] = n;
+            }
+        }
+
+        // at most half full, so that probe sequences stay short
+        this.nodeTable = new int[Integer.highestOneBit(Math.max(1, 2 * nodeCount - 1)) << 1];
+        int mask = nodeTable.length - 1;
+        for (int n = 1; n < nodeCount; n++) {
+            int slot = System.identityHashCode(resolved[n]) & mask;
+            while (nodeTable[slot] != ROOT) {
+                slot = (slot + 1) & mask;
+            }
+            nodeTable[slot] = n;
+        }
+    }
+
+    /**
+     * Number the packages reachable from the project's requirements in a single breadth-first pass,
+     * laying out the requirements of each node as it is visited.
+     */
+    static DependencyGraph build(Collection<Dependency> dependencies, Collection<Dependency> devDependencies) {
+        List<ResolvedDependency> nodes = new ArrayList<>();
+        nodes.add(null);
+        // only needed while building, the graph itself finds nodes in its node table
+        Map<ResolvedDependency, Integer> visited = new IdentityHashMap<>();
+        int[] depths = new int[16];
+        depths[ROOT] = -1;
+        int[] offsets = new int[17];
+        int[] targets = new int[16];
+        int edgeCount = 0;
+        for (int n = 0; n < nodes.size(); n++) {
+            ResolvedDependency node = nodes.get(n);
+            Iterator<Dependency> requirements = node == null ?
+                    concat(dependencies, devDependencies) :
+                    node.getDependencies().iterator();
+            while (requirements.hasNext()) {
+                ResolvedDependency target = requirements.next().getResolved();
+                if (target == null) {
+                    continue;
+                }
+                Integer visitedId = visited.get(target);
+                int id;
+                if (visitedId != null) {
+                    id = visitedId;
+                } else {
+                    id = nodes.size();
+                    visited.put(target, id);
+                    nodes.add(target);
+                    if (id == depths.length) {
+                        depths = Arrays.copyOf(depths, id * 2);
+                    }
+                    depths[id] = depths[n] + 1;
+                }
+                if (edgeCount == targets.length) {
+                    targets = Arrays.copyOf(targets, edgeCount * 2);
+                }
+                targets[edgeCount++] = id;
+            }
+            if (n + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[n + 1] = edgeCount;
+        }
+        int nodeCount = nodes.size();
+        return new DependencyGraph(
+                nodes.toArray(new ResolvedDependency[0]),
+                Arrays.copyOf(depths, nodeCount),
+                Arrays.copyOf(offsets, nodeCount + 1),
+                Arrays.copyOf(targets, edgeCount));
+    }
+
+    private static Iterator<Dependency> concat(Collection<Dependency> first, Collection<Dependency> second) {
+        List<Dependency> all = new ArrayList<>(first.size() + second.size());
+        all.addAll(first);
+        all.addAll(second);
+        return all.iterator();
+    }
+
+    /**
+     * @return The number of nodes, including the {@link #ROOT}.
+     */
+    public int getNodeCount() {
+        return resolved.length;
+    }
+
+    /**
+     * @return The installed package a node stands for, or {@code null} for the {@link #ROOT}.
+     */
+    public @Nullable ResolvedDependency getResolved(int node) {
+        return resolved[node];
+    }
+
+    /**
+     * @return The node standing for an installed package, or -1 if the package isn't part of this graph.
+     */
+    public int getNode(ResolvedDependency resolved) {
+        int mask = nodeTable.length - 1;
+        for (int slot = System.identityHashCode(resolved) & mask; nodeTable[slot] != ROOT; slot = (slot + 1) & mask) {
+            if (this.resolved[nodeTable[slot]] == resolved) {
+                return nodeTable[slot];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The fewest requirements separating a node from the project, zero for direct dependencies
+     * and -1 for the {@link #ROOT}.
+     */
+    public int getDepth(int node) {
+        return depths[node];
+    }
+
+    /**
+     * @return The name of an installed package, or the empty string for the {@link #ROOT}.
+     */
+    public String getName(int node) {
+        return node == ROOT ? "" : names[nameIds[node]];
+    }
+
+    public @Nullable String getVersion(int node) {
+        int versionId = versionIds[node];
+        return versionId == -1 ? null : versions[versionId];
+    }
+
+    public int getDependencyCount(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    public int getDependency(int node, int i) {
+        return targets[offsets[node] + i];
+    }
+
+    /**
+     * @return The number of nodes requiring a node, which together lead back towards the project.
+     */
+    public int getDependentCount(int node) {
+        return reverseOffsets[node + 1] - reverseOffsets[node];
+    }
+
+    public int getDependent(int node, int i) {
+        return sources[reverseOffsets[node] + i];
+    }
+
+    /**
+     * @return The number of distinct names of installed packages.
+     */
+    public int getNameCount() {
+        return names.length;
+    }
+
+    /**
+     * @param nameId A name id, from zero to {@link #getNameCount()} exclusive, in sorted order of names.
+     */
+    public String getNameAt(int nameId) {
+        return names[nameId];
+    }
+
+    /**
+     * @return The id of a name, or a negative number if no package of this name is installed.
+     */
+    public int getNameId(String name) {
+        return Arrays.binarySearch(names, name);
+    }
+
+    /**
+     * @return The number of nodes installed under a name, one for every version in its own location.
+     */
+    public int getInstallCount(int nameId) {
+        return nameOffsets[nameId + 1] - nameOffsets[nameId];
+    }
+
+    public int getInstalled(int nameId, int i) {
+        return nodesByName[nameOffsets[nameId] + i];
+    }
+
+    /**
+     * @return A rough estimate of the heap retained by the graph and by the packages and requirements it refers to,
+     * in bytes, assuming compressed references and compact strings. Requested version ranges are shared between
+     * lockfiles, so they aren't counted.
+     */
+    public long getRetainedSizeEstimate() {
+        long size = objectSize(13) +
+                    arraySize(resolved.length, 4) + arraySize(depths.length, 4) +
+                    arraySize(names.length, 4) + arraySize(nameIds.length, 4) +
+                    arraySize(versions.length, 4) + arraySize(versionIds.length, 4) +
+                    arraySize(offsets.length, 4) + arraySize(targets.length, 4) +
+                    arraySize(reverseOffsets.length, 4) + arraySize(sources.length, 4) +
+                    arraySize(nameOffsets.length, 4) + arraySize(nodesByName.length, 4) +
+                    arraySize(nodeTable.length, 4);
+        for (int n = 1; n < resolved.length; n++) {
+            ResolvedDependency r = resolved[n];
+            size += objectSize(4) + stringSize(r.getName()) + stringSize(r.getVersion()) + stringSize(r.getLicense());
+            int requirements = r.getDependencies().size();
+            if (requirements > 0) {
+                // an ArrayList, which allocates room for ten elements when the first is added, and its requirements
+                size += objectSize(3) + arraySize(Math.max(10, requirements), 4) + requirements * objectSize(3);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @param fields The number of reference or int fields of an object.
+     */
+    static long objectSize(int fields) {
+        return align(12 + 4L * fields);
+    }
+
+    static long arraySize(int length, int elementSize) {
+        return align(16 + (long) length * elementSize);
+    }
+
+    static long stringSize(@Nullable String s) {
+        return s == null ? 0 : objectSize(3) + arraySize(s.length(), 1);
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
@@ -15,10 +15,10 @@
  */
 package org.openrewrite.nodejs;
 
-import com.fasterxml.jackson.databind.MappingIterator;
-import com.fasterxml.jackson.dataformat.csv.CsvMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.Timer;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.Value;
 import org.jspecify.annotations.Nullable;
 import org.openrewrite.*;
@@ -27,25 +27,38 @@ import org.openrewrite.json.JsonIsoVisitor;
 import org.openrewrite.json.JsonPathMatcher;
 import org.openrewrite.json.tree.Json;
 import org.openrewrite.marker.SearchResult;
+import org.openrewrite.nodejs.internal.AdvisoryDatabase;
+import org.openrewrite.nodejs.internal.AdvisoryIndex;
+import org.openrewrite.nodejs.internal.NodeEvent;
+import org.openrewrite.nodejs.internal.NodeMetrics;
+import org.openrewrite.nodejs.internal.NpmRange;
 import org.openrewrite.nodejs.internal.StaticVersionComparator;
 import org.openrewrite.nodejs.internal.Version;
 import org.openrewrite.nodejs.internal.VersionParser;
 import org.openrewrite.nodejs.search.IsPackageJson;
 import org.openrewrite.nodejs.search.IsPackageLockJson;
+import org.openrewrite.nodejs.search.IsYarnLock;
 import org.openrewrite.nodejs.table.VulnerabilityReport;
 import org.openrewrite.semver.LatestPatch;
 
-import java.io.IOException;
-import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.stream.Collectors.joining;
 
 @Value
 @EqualsAndHashCode(callSuper = false)
 public class DependencyVulnerabilityCheck extends ScanningRecipe<DependencyVulnerabilityCheck.Accumulator> {
-    transient VersionParser versionParser = new VersionParser();
+    private static final String PROJECT = "org.openrewrite.nodejs.vulnerableProject";
+    private static final String UPGRADED = "org.openrewrite.nodejs.upgraded";
+
+    private static final VersionParser VERSION_PARSER = new VersionParser();
+    private static final Comparator<Version> VERSION_COMPARATOR = new StaticVersionComparator();
+    private static final LatestPatch LATEST_PATCH = new LatestPatch(null);
+
     transient VulnerabilityReport report = new VulnerabilityReport(this);
 
     @Option(displayName = "Add search markers",
@@ -74,13 +87,73 @@ public class DependencyVulnerabilityCheck extends ScanningRecipe<DependencyVulne
 
     @Value
     public static class Accumulator {
-        Map<String, List<Vulnerability>> db;
-        Map<NameVersion, Set<Vulnerability>> vulnerabilities;
+        AdvisoryIndex db;
+
+        /**
+         * The vulnerable dependencies of each project, by the directory holding its package.json.
+         * Only projects with at least one vulnerable dependency are present.
+         */
+        Map<Path, Project> projects;
+
+        /**
+         * The {@code package-lock.json} and {@code yarn.lock} files scanned, and the package.json files a
+         * {@code yarn.lock} is resolved with.
+         */
+        @Getter(AccessLevel.PACKAGE)
+        @EqualsAndHashCode.Exclude
+        LockfileResolutions lockfiles = new LockfileResolutions();
+
+        Project project(Path directory) {
+            return projects.computeIfAbsent(directory, d -> new Project(new ConcurrentHashMap<>(), new ConcurrentHashMap<>()));
+        }
 
         @Value
-        static class NameVersion {
+        public static class Project {
+            Map<NameVersion, Set<Vulnerability>> vulnerabilities;
+
+            /**
+             * The least depth at which each vulnerable package is installed, zero for direct dependencies.
+             */
+            Map<NameVersion, Integer> depths;
+
+            /*
+             * Derived from the vulnerabilities once scanning is complete, the first time they are needed.
+             */
+            @Getter(AccessLevel.NONE)
+            @EqualsAndHashCode.Exclude
+            AtomicReference<Map<String, String>> upgrades = new AtomicReference<>();
+
+            @Getter(AccessLevel.NONE)
+            @EqualsAndHashCode.Exclude
+            AtomicReference<Map<String, String>> markers = new AtomicReference<>();
+
+            Map<String, String> getUpgrades() {
+                return upgrades.updateAndGet(u -> u == null ? patchUpgrades(this) : u);
+            }
+
+            Map<String, String> getMarkers() {
+                return markers.updateAndGet(m -> m == null ? markers(this) : m);
+            }
+
             /**
-             * The name of the package as specified in the package.json.
+             * @return The vulnerabilities of direct dependencies, which are the only ones a package.json
+             * can upgrade or mark.
+             */
+            Map<NameVersion, Set<Vulnerability>> getDirectVulnerabilities() {
+                Map<NameVersion, Set<Vulnerability>> direct = new TreeMap<>();
+                vulnerabilities.forEach((nv, v) -> {
+                    if (depths.getOrDefault(nv, 0) == 0) {
+                        direct.put(nv, v);
+                    }
+                });
+                return direct;
+            }
+        }
+
+        @Value
+        static class NameVersion implements Comparable<NameVersion> {
+            /**
+             * The name the package is installed under.
              */
             String name;
 
@@ -88,64 +161,107 @@ public class DependencyVulnerabilityCheck extends ScanningRecipe<DependencyVulne
              * The resolved version actually in use, which may be different from the version specified in the package.json.
              */
             String version;
+
+            @Override
+            public int compareTo(NameVersion o) {
+                int c = name.compareTo(o.name);
+                return c != 0 ? c : version.compareTo(o.version);
+            }
         }
     }
 
     @Override
     public Accumulator getInitialValue(ExecutionContext ctx) {
-        CsvMapper csvMapper = new CsvMapper();
-        csvMapper.registerModule(new JavaTimeModule());
-        Map<String, List<Vulnerability>> db = new HashMap<>();
-
-        try (InputStream resourceAsStream = DependencyVulnerabilityCheck.class.getResourceAsStream("/advisories-npm.csv");
-             MappingIterator<Vulnerability> vs = csvMapper.readerWithSchemaFor(Vulnerability.class).readValues(resourceAsStream)) {
-            while (vs.hasNextValue()) {
-                Vulnerability v = vs.nextValue();
-                db.computeIfAbsent(v.getPackageName(), g -> new ArrayList<>()).add(v);
-            }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-
-        return new Accumulator(db, new HashMap<>());
+        NodeMetrics metrics = NodeMetrics.of(ctx);
+        Timer.Sample sample = metrics.start();
+        AdvisoryIndex db = AdvisoryDatabase.get();
+        metrics.stop(sample, NodeMetrics.ADVISORIES_LOAD, getName());
+        return new Accumulator(db, new ConcurrentHashMap<>());
     }
 
     @Override
     public TreeVisitor<?, ExecutionContext> getScanner(Accumulator acc) {
-        return Preconditions.check(new IsPackageLockJson<>(), new JsonIsoVisitor<ExecutionContext>() {
+        String recipe = getName();
+        return Preconditions.check(Preconditions.or(new IsPackageLockJson<>(), new IsYarnLock<>(), new IsPackageJson<>()), new TreeVisitor<Tree, ExecutionContext>() {
             @Override
-            public Json.Document visitDocument(Json.Document document, ExecutionContext ctx) {
-                NodeResolutionResult nodeResolutionResult = NodeResolutionResult.fromPackageLockJson(document);
-                // Find all vulnerable dependencies and add them to the accumulator
-                findVulnerabilities(nodeResolutionResult.getDependencies());
-                findVulnerabilities(nodeResolutionResult.getDevDependencies());
-                return document;
-            }
-
-            private void findVulnerabilities(Collection<Dependency> dependencies) {
-                for (Dependency dependency : dependencies) {
-                    for (Vulnerability v : acc.getDb().getOrDefault(dependency.getName(), Collections.emptyList())) {
-                        String resolvedVersion = dependency.getResolved() == null ? null : dependency.getResolved().getVersion();
-                        acc.getVulnerabilities()
-                                .computeIfAbsent(new Accumulator.NameVersion(dependency.getName(), resolvedVersion), nv -> new LinkedHashSet<>())
-                                .add(v);
-                    }
+            public @Nullable Tree visit(@Nullable Tree tree, ExecutionContext ctx) {
+                if (!(tree instanceof SourceFile)) {
+                    return tree;
+                }
+                SourceFile sourceFile = (SourceFile) tree;
+                NodeMetrics metrics = NodeMetrics.of(ctx);
+                Timer.Sample sample = metrics.start();
+                NodeResolutionResult nodeResolutionResult = acc.getLockfiles().scan(sourceFile, ctx);
+                if (nodeResolutionResult != null) {
+                    addVulnerabilities(acc, LockfileResolutions.directoryOf(sourceFile), sourceFile.getSourcePath(), nodeResolutionResult, ctx);
                 }
+                metrics.stop(sample, NodeMetrics.SCAN, recipe);
+                return tree;
             }
         });
     }
 
+    /**
+     * Find all vulnerable packages of a resolution, direct and transitive, and add them to the project of the
+     * directory of the package.json it resolves.
+     *
+     * @param sourcePath The lockfile, or the package.json if the lockfile is shared with other projects.
+     */
+    private void addVulnerabilities(Accumulator acc, Path directory, Path sourcePath, NodeResolutionResult resolution,
+                                    ExecutionContext ctx) {
+        NodeEvent event = NodeEvent.vulnerabilityScan();
+        int vulnerable = 0;
+        int matched = 0;
+        DependencyGraph graph = resolution.getGraph();
+        for (int node = DependencyGraph.ROOT + 1; node < graph.getNodeCount(); node++) {
+            String version = graph.getVersion(node);
+            if (version == null) {
+                continue;
+            }
+            List<Vulnerability> affecting = acc.getDb().getAdvisories(graph.getName(node), version);
+            if (!affecting.isEmpty()) {
+                vulnerable++;
+                matched += affecting.size();
+                Accumulator.NameVersion nameVersion = new Accumulator.NameVersion(graph.getName(node), version);
+                Accumulator.Project project = acc.project(directory);
+                // the advisories affecting a version are the same no matter which lockfile resolved it,
+                // so whichever scan records them first records all of them
+                project.getVulnerabilities().computeIfAbsent(nameVersion,
+                        nv -> Collections.unmodifiableSet(new LinkedHashSet<>(affecting)));
+                project.getDepths().merge(nameVersion, graph.getDepth(node), Math::min);
+            }
+        }
+        NodeMetrics.of(ctx).count(NodeMetrics.ADVISORIES_MATCHED, getName(), matched);
+        event.end(sourcePath, vulnerable);
+    }
+
     @Override
     public Collection<SourceFile> generate(Accumulator acc, ExecutionContext ctx) {
-        Comparator<Version> vc = new StaticVersionComparator();
-        LatestPatch latestPatch = new LatestPatch(null);
-        for (Map.Entry<Accumulator.NameVersion, Set<Vulnerability>> vulnerabilitiesByPackage : acc.getVulnerabilities().entrySet()) {
+        NodeMetrics metrics = NodeMetrics.of(ctx);
+        // only now that every lockfile has been scanned is it known which lockfile each remaining package.json,
+        // whether next to a yarn.lock or a member of workspaces, is resolved with
+        Timer.Sample scan = metrics.start();
+        acc.getLockfiles().resolveProjects(ctx).forEach((directory, resolution) ->
+                addVulnerabilities(acc, directory, directory.resolve("package.json"), resolution, ctx));
+        metrics.stop(scan, NodeMetrics.SCAN, getName());
+
+        Timer.Sample sample = metrics.start();
+        NodeEvent event = NodeEvent.vulnerabilityReport();
+        // the same version of a package is reported once, however many projects use it
+        Map<Accumulator.NameVersion, Set<Vulnerability>> vulnerabilities = new TreeMap<>();
+        Map<Accumulator.NameVersion, Integer> depths = new HashMap<>();
+        for (Accumulator.Project project : acc.getProjects().values()) {
+            vulnerabilities.putAll(project.getVulnerabilities());
+            project.getDepths().forEach((nv, depth) -> depths.merge(nv, depth, Math::min));
+        }
+        // lockfiles may have been scanned in any order, so report in order of package name and version
+        for (Map.Entry<Accumulator.NameVersion, Set<Vulnerability>> vulnerabilitiesByPackage : vulnerabilities.entrySet()) {
             Accumulator.NameVersion nameVersion = vulnerabilitiesByPackage.getKey();
-            Version resolvedVersion = versionParser.transform(nameVersion.getVersion());
+            NpmRange patchUpdates = patchUpdatesOf(nameVersion.getVersion());
             for (Vulnerability v : vulnerabilitiesByPackage.getValue()) {
-                if (vc.compare(resolvedVersion, versionParser.transform(v.getFixedVersion())) < 0) {
-                    boolean fixWithPatchVersionUpdateOnly = latestPatch.isValid(nameVersion.getVersion(), v.getFixedVersion()) &&
-                                                            latestPatch.compare(nameVersion.getVersion(), nameVersion.getVersion(), v.getFixedVersion()) < 0;
+                // the accumulator only holds advisories affecting the resolved version, but without a fix there is nothing to upgrade to
+                if (!StringUtils.isBlank(v.getFixedVersion())) {
+                    boolean fixWithPatchVersionUpdateOnly = isPatchUpdate(patchUpdates, nameVersion.getVersion(), v.getFixedVersion());
                     // Insert a row into the report for each vulnerability
                     report.insertRow(ctx, new VulnerabilityReport.Row(
                             v.getCve(),
@@ -155,12 +271,14 @@ public class DependencyVulnerabilityCheck extends ScanningRecipe<DependencyVulne
                             fixWithPatchVersionUpdateOnly,
                             v.getSummary(),
                             v.getSeverity().toString(),
-                            0,
+                            depths.getOrDefault(nameVersion, 0),
                             v.getCwes()
                     ));
                 }
             }
         }
+        metrics.stop(sample, NodeMetrics.GENERATE, getName());
+        event.end(null, vulnerabilities.size());
         return Collections.emptyList();
     }
 
@@ -168,62 +286,141 @@ public class DependencyVulnerabilityCheck extends ScanningRecipe<DependencyVulne
     public TreeVisitor<?, ExecutionContext> getVisitor(Accumulator acc) {
         JsonPathMatcher dependency = new JsonPathMatcher("$.dependencies");
         JsonPathMatcher devDependencies = new JsonPathMatcher("$.devDependencies");
-        Comparator<Version> vc = new StaticVersionComparator();
-        LatestPatch latestPatch = new LatestPatch(null);
+        String recipe = getName();
         return Preconditions.check(new IsPackageJson<>(), new JsonIsoVisitor<ExecutionContext>() {
             @Override
             public Json.Document visitDocument(Json.Document document, ExecutionContext ctx) {
-                Json.Document d = super.visitDocument(document, ctx);
-                for (Map.Entry<Accumulator.NameVersion, Set<Vulnerability>> entry : acc.getVulnerabilities().entrySet()) {
-                    String resolvedVersion = entry.getKey().getVersion();
-                    for (Vulnerability v : entry.getValue()) {
-                        boolean fixWithPatchVersionUpdateOnly = latestPatch.isValid(resolvedVersion, v.getFixedVersion()) &&
-                                                                latestPatch.compare(resolvedVersion, resolvedVersion, v.getFixedVersion()) < 0;
-                        if (fixWithPatchVersionUpdateOnly) {
-                            d = (Json.Document) new UpgradeDependencyVersion(v.getPackageName(), '^' + v.getFixedVersion())
-                                    .getVisitor()
-                                    .visitNonNull(d, ctx, getCursor().getParentOrThrow());
-                        }
-                    }
+                // only the findings of the lockfile resolving this package.json are relevant to it
+                Accumulator.Project project = acc.getProjects().get(LockfileResolutions.directoryOf(document));
+                if (project == null) {
+                    return document;
                 }
+                NodeMetrics metrics = NodeMetrics.of(ctx);
+                Timer.Sample sample = metrics.start();
+                NodeEvent event = NodeEvent.dependencyUpgrade();
+                AtomicInteger upgraded = new AtomicInteger();
+                getCursor().putMessage(PROJECT, project);
+                getCursor().putMessage(UPGRADED, upgraded);
+                Json.Document d = super.visitDocument(document, ctx);
+                metrics.count(NodeMetrics.UPGRADES, recipe, upgraded.get());
+                metrics.stop(sample, NodeMetrics.EDIT, recipe);
+                event.end(document.getSourcePath(), upgraded.get());
                 return d;
             }
 
             @Override
             public Json.Member visitMember(Json.Member member, ExecutionContext ctx) {
                 Json.Member m = super.visitMember(member, ctx);
-                if (!Boolean.TRUE.equals(addMarkers)) {
+                Cursor maybeDependencies = getCursor().getParent(2);
+                if (maybeDependencies == null || !(dependency.matches(maybeDependencies) || devDependencies.matches(maybeDependencies))) {
                     return m;
                 }
 
-                Cursor maybeDependencies = getCursor().getParent(2);
-                if (maybeDependencies != null && (dependency.matches(maybeDependencies) || devDependencies.matches(maybeDependencies))) {
-                    String name = ((Json.Literal) member.getKey()).getValue().toString();
-                    for (Map.Entry<Accumulator.NameVersion, Set<Vulnerability>> entry : acc.getVulnerabilities().entrySet()) {
-                        Accumulator.NameVersion nameVersion = entry.getKey();
-                        if (nameVersion.getName().equals(name)) {
-                            Version resolvedVersion = versionParser.transform(nameVersion.getVersion());
-                            List<Vulnerability> applicableVulnerabilities = entry.getValue().stream()
-                                    .filter(v -> StringUtils.isBlank(v.getFixedVersion()) ||
-                                                 vc.compare(resolvedVersion, versionParser.transform(v.getFixedVersion())) < 0)
-                                    .collect(Collectors.toList());
-                            if (!applicableVulnerabilities.isEmpty()) {
-                                return SearchResult.found(m,
-                                        "This dependency has the following vulnerabilities:\n" +
-                                        applicableVulnerabilities.stream()
-                                                .map(v -> String.format("%s (%s severity%s) - %s",
-                                                        v.getCve(),
-                                                        v.getSeverity(),
-                                                        StringUtils.isBlank(v.getFixedVersion()) ? "" : ", fixed in " + v.getFixedVersion(),
-                                                        v.getSummary()))
-                                                .collect(joining("\n")));
-                            }
+                Accumulator.Project project = getCursor().getNearestMessage(PROJECT);
+                if (project == null) {
+                    return m;
+                }
+                String name = ((Json.Literal) member.getKey()).getValue().toString();
+                String fixedVersion = project.getUpgrades().get(name);
+                if (fixedVersion != null && !requestsFixedVersion(m, fixedVersion)) {
+                    Json.Member upgraded = UpgradeDependencyVersion.upgrade(m, '^' + fixedVersion);
+                    if (upgraded != m) {
+                        AtomicInteger count = getCursor().getNearestMessage(UPGRADED);
+                        if (count != null) {
+                            count.incrementAndGet();
                         }
+                        m = upgraded;
                     }
                 }
 
+                String marker = Boolean.TRUE.equals(addMarkers) ? project.getMarkers().get(name) : null;
+                if (marker != null) {
+                    m = SearchResult.found(m, marker);
+                }
+
                 return m;
             }
         });
     }
+
+    /**
+     * @return The search result message listing the vulnerabilities of each package, by package name.
+     */
+    private static Map<String, String> markers(Accumulator.Project project) {
+        Map<String, Set<Vulnerability>> vulnerabilitiesByName = new HashMap<>();
+        for (Map.Entry<Accumulator.NameVersion, Set<Vulnerability>> entry : project.getDirectVulnerabilities().entrySet()) {
+            vulnerabilitiesByName.computeIfAbsent(entry.getKey().getName(), n -> new LinkedHashSet<>())
+                    .addAll(entry.getValue());
+        }
+        Map<String, String> markers = new HashMap<>(vulnerabilitiesByName.size());
+        vulnerabilitiesByName.forEach((name, vulnerabilities) -> markers.put(name,
+                "This dependency has the following vulnerabilities:\n" +
+                vulnerabilities.stream()
+                        .map(v -> String.format("%s (%s severity%s) - %s",
+                                v.getCve(),
+                                v.getSeverity(),
+                                StringUtils.isBlank(v.getFixedVersion()) ? "" : ", fixed in " + v.getFixedVersion(),
+                                v.getSummary()))
+                        .collect(joining("\n"))));
+        return markers;
+    }
+
+    /**
+     * Determine up front the version each package should be upgraded to, so that every upgrade
+     * can be applied in a single pass over a package.json no matter how many vulnerabilities were found.
+     *
+     * @return The greatest fixed version that is only a patch version update away from the resolved version,
+     * by package name.
+     */
+    private static Map<String, String> patchUpgrades(Accumulator.Project project) {
+        Map<String, String> fixedVersions = new HashMap<>();
+        for (Map.Entry<Accumulator.NameVersion, Set<Vulnerability>> entry : project.getDirectVulnerabilities().entrySet()) {
+            String resolvedVersion = entry.getKey().getVersion();
+            NpmRange patchUpdates = patchUpdatesOf(resolvedVersion);
+            for (Vulnerability v : entry.getValue()) {
+                if (isPatchUpdate(patchUpdates, resolvedVersion, v.getFixedVersion())) {
+                    fixedVersions.merge(v.getPackageName(), v.getFixedVersion(), (f1, f2) ->
+                            VERSION_COMPARATOR.compare(VERSION_PARSER.transform(f1), VERSION_PARSER.transform(f2)) >= 0 ? f1 : f2);
+                }
+            }
+        }
+        return fixedVersions;
+    }
+
+    /**
+     * @return The versions a patch version update can reach from the resolved version, or {@code null} if the
+     * resolved version has a qualifier and can only be handled by {@link LatestPatch}.
+     */
+    private static @Nullable NpmRange patchUpdatesOf(String resolvedVersion) {
+        long packed = VERSION_PARSER.transform(resolvedVersion).getPacked();
+        return packed < 0 ? null : NpmRange.patchUpdatesOf(packed);
+    }
+
+    private static boolean isPatchUpdate(@Nullable NpmRange patchUpdates, String resolvedVersion, @Nullable String fixedVersion) {
+        if (StringUtils.isBlank(fixedVersion)) {
+            return false;
+        }
+        if (patchUpdates != null) {
+            long fixed = VERSION_PARSER.transform(fixedVersion).getPacked();
+            if (fixed >= 0) {
+                return patchUpdates.admits(fixed);
+            }
+        }
+        return LATEST_PATCH.isValid(resolvedVersion, fixedVersion) &&
+               LATEST_PATCH.compare(resolvedVersion, resolvedVersion, fixedVersion) < 0;
+    }
+
+    /**
+     * @return Whether the requested range of a dependency admits no version below the fixed version anymore,
+     * in which case requesting the fixed version would be a downgrade. The lockfile may simply be out of date.
+     */
+    private static boolean requestsFixedVersion(Json.Member dependency, String fixedVersion) {
+        if (!(dependency.getValue() instanceof Json.Literal) ||
+            !(((Json.Literal) dependency.getValue()).getValue() instanceof String)) {
+            return false;
+        }
+        NpmRange requested = NpmRange.compile((String) ((Json.Literal) dependency.getValue()).getValue());
+        long fixed = VERSION_PARSER.transform(fixedVersion).getPacked();
+        return requested != null && fixed >= 0 && requested.getMinimum() >= fixed;
+    }
 }
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs;
+
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.json.tree.Json;
+import org.openrewrite.nodejs.search.IsPackageJson;
+import org.openrewrite.nodejs.search.IsPackageLockJson;
+import org.openrewrite.nodejs.search.IsYarnLock;
+import org.openrewrite.text.PlainText;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The resolutions of the lockfiles found while scanning, by the directory of the package.json they resolve, so
+ * that a package.json is paired with the lockfile next to it or, for a member of npm or Yarn workspaces, with the
+ * lockfile at the root of the workspaces.
+ * <p>
+ * Lockfiles may be scanned concurrently and in any order. A {@code package-lock.json} takes precedence over a
+ * {@code yarn.lock} in the same directory, which is why a package.json without a {@code package-lock.json} next
+ * to it is only resolved by {@link #resolveProjects(ExecutionContext)} once every lockfile has been scanned.
+ */
+public class LockfileResolutions {
+    private static final Path ROOT = Paths.get("");
+
+    private final Map<Path, NodeResolutionResult> packageLocks = new ConcurrentHashMap<>();
+
+    /**
+     * The resolutions of the package.json files without a {@code package-lock.json} next to them.
+     */
+    private final Map<Path, NodeResolutionResult> projects = new ConcurrentHashMap<>();
+
+    /**
+     * The {@code yarn.lock} and package.json files scanned in directories without a {@code package-lock.json}, until
+     * scanning is complete.
+     */
+    private final Map<Path, PlainText> yarnLocks = new ConcurrentHashMap<>();
+    private final Map<Path, Json.Document> packageJsons = new ConcurrentHashMap<>();
+
+    public void add(Json.Document lockfile, NodeResolutionResult resolution) {
+        Path directory = directoryOf(lockfile);
+        packageLocks.put(directory, resolution);
+        packageJsons.remove(directory);
+        yarnLocks.remove(directory);
+    }
+
+    /**
+     * Resolves a {@code package-lock.json}. A {@code yarn.lock} and a package.json are only recorded, to be resolved
+     * by {@link #resolveProjects(ExecutionContext)}, since a {@code yarn.lock} doesn't record what the project
+     * itself requires.
+     *
+     * @param sourceFile A {@code package-lock.json}, {@code yarn.lock} or package.json.
+     * @return The resolution of a {@code package-lock.json}, or {@code null} for any other source file.
+     */
+    public @Nullable NodeResolutionResult scan(SourceFile sourceFile, ExecutionContext ctx) {
+        Path sourcePath = sourceFile.getSourcePath();
+        if (sourceFile instanceof Json.Document && IsPackageLockJson.matches(sourcePath)) {
+            NodeResolutionResult resolution = NodeResolutionCache.getInstance(ctx).resolve((Json.Document) sourceFile);
+            add((Json.Document) sourceFile, resolution);
+            return resolution;
+        }
+
+        Path directory = directoryOf(sourceFile);
+        if (packageLocks.containsKey(directory)) {
+            return null;
+        }
+        if (sourceFile instanceof PlainText && IsYarnLock.matches(sourcePath)) {
+            yarnLocks.put(directory, (PlainText) sourceFile);
+        } else if (sourceFile instanceof Json.Document && IsPackageJson.matches(sourcePath)) {
+            packageJsons.put(directory, (Json.Document) sourceFile);
+        }
+        return null;
+    }
+
+    /**
+     * Resolves each package.json scanned without a {@code package-lock.json} next to it, with the nearest lockfile
+     * that includes it: a {@code yarn.lock} next to it, or else the lockfile of the nearest ancestor directory
+     * that has the package.json's directory among its workspaces. To be called once scanning is complete, before
+     * any resolution is looked up, after which the scanned {@code yarn.lock} and package.json files are no longer
+     * held on to.
+     *
+     * @return The resolutions added, by the directory of their package.json.
+     */
+    public Map<Path, NodeResolutionResult> resolveProjects(ExecutionContext ctx) {
+        Map<Path, NodeResolutionResult> resolved = new HashMap<>();
+        Map<Path, Set<String>> yarnWorkspaces = new HashMap<>();
+        for (Map.Entry<Path, Json.Document> packageJson : packageJsons.entrySet()) {
+            Path directory = packageJson.getKey();
+            if (packageLocks.containsKey(directory)) {
+                continue;
+            }
+            NodeResolutionResult resolution = resolve(directory, packageJson.getValue(), yarnWorkspaces, ctx);
+            if (resolution != null) {
+                projects.put(directory, resolution);
+                resolved.put(directory, resolution);
+            }
+        }
+        yarnLocks.clear();
+        packageJsons.clear();
+        return resolved;
+    }
+
+    private @Nullable NodeResolutionResult resolve(Path directory, Json.Document packageJson,
+                                                   Map<Path, Set<String>> yarnWorkspaces, ExecutionContext ctx) {
+        PlainText yarnLock = yarnLocks.get(directory);
+        if (yarnLock != null) {
+            return NodeResolutionCache.getInstance(ctx).resolve(yarnLock, packageJson);
+        }
+        for (Path root = parentOf(directory); root != null; root = parentOf(root)) {
+            String workspace = root.relativize(directory).toString().replace('\\', '/');
+            NodeResolutionResult packageLock = packageLocks.get(root);
+            if (packageLock != null) {
+                NodeResolutionResult resolution = packageLock.getWorkspace(workspace);
+                if (resolution != null) {
+                    return resolution;
+                }
+                continue;
+            }
+            PlainText rootYarnLock = yarnLocks.get(root);
+            if (rootYarnLock != null &&
+                yarnWorkspaces.computeIfAbsent(root, r -> YarnLockReader.workspaces(rootYarnLock.getText())).contains(workspace)) {
+                // a yarn.lock records what the workspaces resolve to, but not what each of them requires
+                return NodeResolutionCache.getInstance(ctx).resolve(rootYarnLock, packageJson);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param packageJson A package.json.
+     * @return The resolution of the lockfile in the same directory as the package.json, or of the lockfile of
+     * the workspaces it belongs to, if any.
+     */
+    public @Nullable NodeResolutionResult get(SourceFile packageJson) {
+        Path directory = directoryOf(packageJson);
+        NodeResolutionResult packageLock = packageLocks.get(directory);
+        return packageLock == null ? projects.get(directory) : packageLock;
+    }
+
+    public int size() {
+        return packageLocks.size() + projects.size();
+    }
+
+    public static Path directoryOf(SourceFile sourceFile) {
+        Path directory = sourceFile.getSourcePath().getParent();
+        return directory == null ? ROOT : directory;
+    }
+
+    private static @Nullable Path parentOf(Path directory) {
+        if (directory.equals(ROOT)) {
+            return null;
+        }
+        Path parent = directory.getParent();
+        return parent == null ? ROOT : parent;
+    }
+}
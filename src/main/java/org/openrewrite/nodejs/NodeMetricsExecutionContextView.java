@@ -0,0 +1,51 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.DelegatingExecutionContext;
+import org.openrewrite.ExecutionContext;
+
+/**
+ * Supplies the {@link MeterRegistry} that the Node.js recipes record the time spent in each of their phases
+ * to, along with the number of packages resolved, advisories matched and dependencies upgraded. Without a
+ * registry, nothing is recorded.
+ */
+@SuppressWarnings("unused")
+public class NodeMetricsExecutionContextView extends DelegatingExecutionContext {
+    public static final String METER_REGISTRY = "org.openrewrite.nodejs.meterRegistry";
+
+    public NodeMetricsExecutionContextView(ExecutionContext delegate) {
+        super(delegate);
+    }
+
+    public static NodeMetricsExecutionContextView view(ExecutionContext ctx) {
+        if (ctx instanceof NodeMetricsExecutionContextView) {
+            return (NodeMetricsExecutionContextView) ctx;
+        }
+        return new NodeMetricsExecutionContextView(ctx);
+    }
+
+    public NodeMetricsExecutionContextView setMeterRegistry(MeterRegistry meterRegistry) {
+        putMessage(METER_REGISTRY, meterRegistry);
+        return this;
+    }
+
+    public @Nullable MeterRegistry getMeterRegistry() {
+        return getMessage(METER_REGISTRY);
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs;
+
+import io.micrometer.core.instrument.Timer;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.json.tree.Json;
+import org.openrewrite.nodejs.internal.NodeMetrics;
+import org.openrewrite.text.PlainText;
+
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Resolves each lockfile once per {@link ExecutionContext}, so that every recipe of a run that needs the
+ * resolution of a lockfile shares it rather than resolving the lockfile again.
+ * <p>
+ * Entries are keyed by source path and only reused for the very same LST instance. Since LSTs are immutable,
+ * a lockfile changed by an earlier recipe is a different instance and is resolved again. A {@code yarn.lock} is
+ * keyed by the path of the package.json it is resolved with, since the workspaces of a Yarn project share one.
+ * <p>
+ * Resolutions are timed, and the packages they resolve counted, in the {@link NodeMetricsExecutionContextView meter registry}
+ * of the context the cache was created for.
+ */
+public class NodeResolutionCache {
+    private static final String NODE_RESOLUTION_CACHE = "org.openrewrite.nodejs.resolutionCache";
+    private static final Object LOCK = new Object();
+
+    private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final NodeMetrics metrics;
+
+    private NodeResolutionCache(NodeMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public static NodeResolutionCache getInstance(ExecutionContext ctx) {
+        NodeResolutionCache cache = ctx.getMessage(NODE_RESOLUTION_CACHE);
+        if (cache != null) {
+            return cache;
+        }
+        // scanners may run concurrently, and computeMessageIfAbsent isn't atomic in every execution context,
+        // so without the lock two of them could each create a cache and one would lose its entries
+        synchronized (LOCK) {
+            return ctx.computeMessageIfAbsent(NODE_RESOLUTION_CACHE, k -> new NodeResolutionCache(NodeMetrics.of(ctx)));
+        }
+    }
+
+    public NodeResolutionResult resolve(Json.Document lockfile) {
+        return resolve(lockfile, null, () -> NodeResolutionResult.fromPackageLockJson(lockfile));
+    }
+
+    /**
+     * Resolves a {@code yarn.lock} together with the package.json next to it, which records what the project
+     * itself requires. The resolution is only reused for the very same LSTs of both.
+     */
+    public NodeResolutionResult resolve(PlainText yarnLock, Json.Document packageJson) {
+        return resolve(yarnLock, packageJson, () -> NodeResolutionResult.fromYarnLock(yarnLock, packageJson));
+    }
+
+    private NodeResolutionResult resolve(SourceFile lockfile, Json.@Nullable Document packageJson,
+                                         Supplier<NodeResolutionResult> resolver) {
+        Path path = packageJson == null ? lockfile.getSourcePath() : packageJson.getSourcePath();
+        Entry entry = entries.get(path);
+        if (entry == null || !entry.isFor(lockfile, packageJson)) {
+            // the map is only locked to insert the entry, and the scanner that inserted it resolves the lockfile
+            // outside of any lock, while scanners racing for the same lockfile wait for its resolution
+            Entry created = new Entry(lockfile, packageJson);
+            entry = entries.computeIfAbsent(path, p -> created);
+            while (entry != created && !entry.isFor(lockfile, packageJson)) {
+                // the entry of another LST of the same lockfile, such as one that an earlier recipe changed
+                entry = entries.replace(path, entry, created) ? created : entries.computeIfAbsent(path, p -> created);
+            }
+            if (entry == created) {
+                misses.incrementAndGet();
+                return resolve(path, created, resolver);
+            }
+        }
+        hits.incrementAndGet();
+        return entry.join();
+    }
+
+    private NodeResolutionResult resolve(Path path, Entry entry, Supplier<NodeResolutionResult> resolver) {
+        Timer.Sample sample = metrics.start();
+        long start = System.nanoTime();
+        NodeResolutionResult resolution;
+        try {
+            resolution = resolver.get();
+        } catch (RuntimeException | Error e) {
+            // not cached, so that the next scanner to need the lockfile tries again
+            entries.remove(path, entry);
+            entry.resolution.completeExceptionally(e);
+            throw e;
+        }
+        entry.nanos = System.nanoTime() - start;
+        metrics.stop(sample, NodeMetrics.LOCKFILE_RESOLVE);
+        metrics.count(NodeMetrics.PACKAGES_RESOLVED, resolution.getGraph().getNodeCount() - 1);
+        entry.resolution.complete(resolution);
+        return resolution;
+    }
+
+    /**
+     * @return The resolution of the lockfile, if a recipe of this run has already resolved this very LST,
+     * without resolving it otherwise.
+     */
+    public @Nullable NodeResolutionResult getIfPresent(Json.Document lockfile) {
+        Entry entry = entries.get(lockfile.getSourcePath());
+        return entry != null && entry.lockfile.get() == lockfile && entry.isResolved() ? entry.resolution.join() : null;
+    }
+
+    /**
+     * @return How long resolving the lockfile took, or {@code null} if this cache hasn't resolved this very LST.
+     */
+    public @Nullable Duration getResolutionTime(Json.Document lockfile) {
+        Entry entry = entries.get(lockfile.getSourcePath());
+        return entry != null && entry.lockfile.get() == lockfile && entry.isResolved() ? Duration.ofNanos(entry.nanos) : null;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    private static class Entry {
+        final WeakReference<SourceFile> lockfile;
+
+        /**
+         * The package.json a {@code yarn.lock} was resolved with, or {@code null} for a {@code package-lock.json}.
+         */
+        final @Nullable WeakReference<Json.Document> packageJson;
+
+        final CompletableFuture<NodeResolutionResult> resolution = new CompletableFuture<>();
+
+        /**
+         * Written before the resolution completes, so it may be read once the resolution is complete.
+         */
+        long nanos;
+
+        Entry(SourceFile lockfile, Json.@Nullable Document packageJson) {
+            this.lockfile = new WeakReference<>(lockfile);
+            this.packageJson = packageJson == null ? null : new WeakReference<>(packageJson);
+        }
+
+        boolean isResolved() {
+            return resolution.isDone() && !resolution.isCompletedExceptionally();
+        }
+
+        NodeResolutionResult join() {
+            try {
+                return resolution.join();
+            } catch (CompletionException e) {
+                // the scanner that resolved the lockfile failed, so fail the same way
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                } else if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        boolean isFor(SourceFile lockfile, Json.@Nullable Document packageJson) {
+            return this.lockfile.get() == lockfile &&
+                   (packageJson == null ? this.packageJson == null :
+                           this.packageJson != null && this.packageJson.get() == packageJson);
+        }
+    }
+}
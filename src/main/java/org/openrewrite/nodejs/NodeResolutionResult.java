@@ -15,19 +15,20 @@
  */
 package org.openrewrite.nodejs;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.MapperFeature;
-import com.fasterxml.jackson.databind.cfg.ConstructorDetector;
-import com.fasterxml.jackson.databind.json.JsonMapper;
-import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import com.fasterxml.jackson.core.JsonParser;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 import lombok.Value;
 import org.jspecify.annotations.Nullable;
-import org.openrewrite.Validated;
 import org.openrewrite.json.tree.Json;
-import org.openrewrite.semver.Semver;
-import org.openrewrite.semver.VersionComparator;
+import org.openrewrite.nodejs.internal.NodeEvent;
+import org.openrewrite.text.PlainText;
 
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.*;
 
 import static java.util.Collections.emptyList;
@@ -37,101 +38,226 @@ public class NodeResolutionResult {
     Collection<Dependency> dependencies;
     Collection<Dependency> devDependencies;
 
-    public @Nullable Dependency getDependency(String name) {
+    /**
+     * Direct dependencies by name, with dependencies taking precedence over development dependencies
+     * of the same name.
+     */
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    Map<String, Dependency> dependenciesByName;
+
+    /**
+     * Installed packages, their depth and their requirements in compact form, so that traversals
+     * don't have to chase the dependency objects.
+     */
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    DependencyGraph graph;
+
+    /**
+     * The workspace packages of a {@code package-lock.json} at the root of npm workspaces, by their path relative to
+     * the root, such as {@code packages/a}.
+     */
+    @Getter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    Map<String, Workspace> workspaces;
+
+    public NodeResolutionResult(Collection<Dependency> dependencies, Collection<Dependency> devDependencies) {
+        this(dependencies, devDependencies, Collections.emptyMap());
+    }
+
+    NodeResolutionResult(Collection<Dependency> dependencies, Collection<Dependency> devDependencies,
+                         Map<String, Workspace> workspaces) {
+        this.dependencies = dependencies;
+        this.devDependencies = devDependencies;
+        this.dependenciesByName = new HashMap<>(dependencies.size() + devDependencies.size());
         for (Dependency d : dependencies) {
-            if (d.getName().equals(name)) {
-                return d;
-            }
+            dependenciesByName.putIfAbsent(d.getName(), d);
         }
         for (Dependency d : devDependencies) {
-            if (d.getName().equals(name)) {
-                return d;
-            }
+            dependenciesByName.putIfAbsent(d.getName(), d);
+        }
+        this.graph = DependencyGraph.build(dependencies, devDependencies);
+        this.workspaces = workspaces;
+    }
+
+    /**
+     * @param path The path of a workspace package relative to the directory of the lockfile, such as {@code packages/a}.
+     * @return The resolution of the workspace package's own dependencies, or {@code null} if the lockfile has no
+     * workspace package at that path.
+     */
+    public @Nullable NodeResolutionResult getWorkspace(String path) {
+        Workspace workspace = workspaces.get(path);
+        return workspace == null ? null : workspace.getResolution();
+    }
+
+    public @Nullable Dependency getDependency(String name) {
+        return dependenciesByName.get(name);
+    }
+
+    /**
+     * @param name A package name.
+     * @return Every installed version of the package, whether it is a direct or transitive dependency.
+     */
+    public List<ResolvedDependency> getResolved(String name) {
+        int nameId = graph.getNameId(name);
+        if (nameId < 0) {
+            return emptyList();
+        }
+        List<ResolvedDependency> resolved = new ArrayList<>(graph.getInstallCount(nameId));
+        for (int i = 0; i < graph.getInstallCount(nameId); i++) {
+            resolved.add(graph.getResolved(graph.getInstalled(nameId, i)));
+        }
+        return resolved;
+    }
+
+    /**
+     * @param resolved An installed package of this resolution.
+     * @return The depth of the package, zero for direct dependencies, or -1 if the project doesn't depend on it.
+     */
+    public int getDepth(ResolvedDependency resolved) {
+        int node = graph.getNode(resolved);
+        return node == -1 ? -1 : graph.getDepth(node);
+    }
+
+    /**
+     * @return The names of all installed packages, in sorted order. The set is created from the graph's names
+     * on every call rather than retained.
+     */
+    public NavigableSet<String> getResolvedNames() {
+        return resolvedNames(0, graph.getNameCount());
+    }
+
+    /**
+     * @param prefix A name prefix, such as a scope like {@code @apollo/}.
+     * @return The names of all installed packages starting with the prefix, in sorted order.
+     */
+    public SortedSet<String> getResolvedNames(String prefix) {
+        int from = graph.getNameId(prefix);
+        int to = graph.getNameId(prefix + Character.MAX_VALUE);
+        return resolvedNames(from < 0 ? -from - 1 : from, to < 0 ? -to - 1 : to);
+    }
+
+    private NavigableSet<String> resolvedNames(int fromNameId, int toNameId) {
+        NavigableSet<String> names = new TreeSet<>();
+        for (int i = fromNameId; i < toNameId; i++) {
+            names.add(graph.getNameAt(i));
         }
-        return null;
+        return Collections.unmodifiableNavigableSet(names);
     }
 
+    /**
+     * @return A rough estimate of the heap retained by this resolution, in bytes, for finding the lockfiles
+     * that are responsible for heap peaks.
+     */
+    public long getRetainedSizeEstimate() {
+        long size = DependencyGraph.objectSize(4) + graph.getRetainedSizeEstimate();
+        size += DependencyGraph.arraySize(Math.max(16, 2 * dependenciesByName.size()), 4) +
+                dependenciesByName.size() * DependencyGraph.objectSize(4);
+        return size;
+    }
+
+    /**
+     * Resolves a {@code package-lock.json} that has already been parsed, reading the LST directly rather than
+     * printing and parsing it again.
+     */
     public static NodeResolutionResult fromPackageLockJson(Json.Document lockfileJson) {
-        Collection<Dependency> dependencies = new ArrayList<>();
-        Collection<Dependency> devDependencies = new ArrayList<>();
-        try {
-            Lockfile lock = JsonMapper.builder()
-                    .enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_PROPERTIES)
-                    .constructorDetector(ConstructorDetector.USE_PROPERTIES_BASED)
-                    .build()
-                    .registerModule(new ParameterNamesModule())
-                    .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
-                    .readValue(lockfileJson.printAll(), Lockfile.class);
-
-            // multiple requested dependencies will all resolve to one version in the end
-            Map<String, Collection<Dependency>> byName = new HashMap<>();
-
-            lock.getPackages().forEach((pkgName, pkg) -> {
-                boolean isRoot = "".equals(pkgName);
-                List<Dependency> transitive;
-                if (!isRoot) {
-                    if (pkg.getDependencies() != null) {
-                        transitive = new ArrayList<>(pkg.getDependencies().size());
-                        pkg.getDependencies().forEach((name, version) -> {
-                            Validated<VersionComparator> validatedVersion = Semver.validate(version, null);
-                            if (validatedVersion.isValid()) {
-                                Dependency d = new Dependency(name, validatedVersion.getValue(), null);
-                                transitive.add(d);
-                                byName.computeIfAbsent(name, n -> new ArrayList<>()).add(d);
-                            }
-                        });
-                    } else {
-                        transitive = emptyList();
-                    }
-                    String name = pkgName.replaceFirst("node_modules/", "");
-                    ResolvedDependency resolved = new ResolvedDependency(
-                            name,
-                            pkg.getVersion(),
-                            pkg.getLicense(),
-                            transitive
-                    );
-                    byName.getOrDefault(name, emptyList()).forEach(d -> d.unsafeSetResolved(resolved));
-                }
-                if (pkg.getDependencies() != null) {
-                    pkg.getDependencies().forEach((name, version) -> {
-                        Validated<VersionComparator> validatedVersion = Semver.validate(version, null);
-                        if (validatedVersion.isValid()) {
-                            Dependency dep = new Dependency(name, validatedVersion.getValue(), null);
-                            if (isRoot) {
-                                dependencies.add(dep);
-                            }
-                            byName.computeIfAbsent(name, n -> new ArrayList<>()).add(dep);
-                        }
-                    });
-                }
-                if (pkg.getDevDependencies() != null) {
-                    pkg.getDevDependencies().forEach((name, version) -> {
-                        Validated<VersionComparator> validatedVersion = Semver.validate(version, null);
-                        if (validatedVersion.isValid()) {
-                            Dependency dep = new Dependency(name, validatedVersion.getValue(), null);
-                            if (isRoot) {
-                                devDependencies.add(dep);
-                            }
-                            byName.computeIfAbsent(name, n -> new ArrayList<>()).add(dep);
-                        }
-                    });
-                }
-            });
-        } catch (JsonProcessingException ignored) {
+        NodeEvent event = NodeEvent.lockfileParse();
+        NodeResolutionResult resolution = PackageLockReader.read(lockfileJson);
+        event.end(lockfileJson.getSourcePath(), resolution.getGraph().getNodeCount() - 1);
+        return resolution;
+    }
+
+    /**
+     * Resolves a {@code package-lock.json} straight from its bytes, streaming through it rather than holding
+     * its text or an object model of it in memory.
+     *
+     * @throws UncheckedIOException If the lockfile can't be read or isn't valid JSON.
+     */
+    public static NodeResolutionResult fromPackageLockJson(InputStream lockfileJson) {
+        NodeEvent event = NodeEvent.lockfileParse();
+        long packageCount = 0;
+        try (JsonParser parser = PackageLockReader.JSON_FACTORY.createParser(lockfileJson)) {
+            NodeResolutionResult resolution = PackageLockReader.read(parser);
+            packageCount = resolution.getGraph().getNodeCount() - 1;
+            return resolution;
+        } catch (IOException e) {
+            // a lockfile that isn't valid JSON fails here rather than resolving to nothing
+            throw new UncheckedIOException(e);
+        } finally {
+            event.end(null, packageCount);
         }
-        return new NodeResolutionResult(dependencies, devDependencies);
     }
 
-    @Value
-    static class Lockfile {
-        Map<String, Package> packages;
+    /**
+     * Resolves a {@code yarn.lock}, written by Yarn 1 or by Yarn 2 and later, streaming through it line by line.
+     * A {@code yarn.lock} doesn't record what the project itself requires, so that is taken from the project's
+     * {@code package.json}.
+     * <p>
+     * As with a {@code package-lock.json}, requirements whose range isn't a valid {@link org.openrewrite.semver.Semver}
+     * selector, such as unions like {@code ^1.0.0 || ^2.0.0}, are left out of the resolution.
+     *
+     * @throws UncheckedIOException If the lockfile can't be read.
+     */
+    public static NodeResolutionResult fromYarnLock(InputStream yarnLock, Json.Document packageJson) {
+        return fromYarnLock(new InputStreamReader(yarnLock, StandardCharsets.UTF_8), packageJson);
+    }
 
-        @Value
-        static class Package {
-            String version;
-            String license;
-            Map<String, String> dependencies;
-            Map<String, String> devDependencies;
+    /**
+     * @see #fromYarnLock(InputStream, Json.Document)
+     */
+    public static NodeResolutionResult fromYarnLock(Reader yarnLock, Json.Document packageJson) {
+        return fromYarnLock(yarnLock, packageJson, null);
+    }
+
+    /**
+     * Resolves a {@code yarn.lock} that has already been parsed as plain text.
+     *
+     * @see #fromYarnLock(InputStream, Json.Document)
+     */
+    static NodeResolutionResult fromYarnLock(PlainText yarnLock, Json.Document packageJson) {
+        return fromYarnLock(new StringReader(yarnLock.getText()), packageJson, yarnLock.getSourcePath());
+    }
+
+    private static NodeResolutionResult fromYarnLock(Reader yarnLock, Json.Document packageJson, @Nullable Path sourcePath) {
+        NodeEvent event = NodeEvent.lockfileParse();
+        long packageCount = 0;
+        try (BufferedReader lines = yarnLock instanceof BufferedReader ?
+                (BufferedReader) yarnLock : new BufferedReader(yarnLock)) {
+            NodeResolutionResult resolution = YarnLockReader.read(lines, packageJson);
+            packageCount = resolution.getGraph().getNodeCount() - 1;
+            return resolution;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            event.end(sourcePath, packageCount);
+        }
+    }
+
+    /**
+     * The direct dependencies of a workspace package, which are only resolved into a graph of their own once
+     * a package.json of that workspace asks for them.
+     */
+    static class Workspace {
+        private final Collection<Dependency> dependencies;
+        private final Collection<Dependency> devDependencies;
+        private volatile @Nullable NodeResolutionResult resolution;
+
+        Workspace(Collection<Dependency> dependencies, Collection<Dependency> devDependencies) {
+            this.dependencies = dependencies;
+            this.devDependencies = devDependencies;
+        }
+
+        NodeResolutionResult getResolution() {
+            NodeResolutionResult r = resolution;
+            if (r == null) {
+                // callers racing for the same workspace may each build its graph, and either one is as good
+                r = new NodeResolutionResult(dependencies, devDependencies);
+                resolution = r;
+            }
+            return r;
         }
     }
 }
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.json.tree.Json;
+
+import java.io.IOException;
+
+/**
+ * Reads the {@code packages} section of a {@code package-lock.json}, handing each entry to a
+ * {@link ResolutionBuilder} without binding the lockfile to an object model first. Everything outside
+ * of {@code packages}, as well as fields of a package that resolution doesn't need, is skipped.
+ * <p>
+ * Lockfiles are either streamed token by token or, when they have already been parsed into an LST,
+ * read by walking the {@link Json.Document} directly.
+ */
+class PackageLockReader {
+    /**
+     * Factories are thread-safe once configured, and creating parsers from a shared factory lets them
+     * reuse its symbol tables and buffers.
+     */
+    static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private PackageLockReader() {
+    }
+
+    static NodeResolutionResult read(JsonParser parser) throws IOException {
+        ResolutionBuilder builder = new ResolutionBuilder();
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return builder.build();
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("packages".equals(field) && value == JsonToken.START_OBJECT) {
+                readPackages(parser, builder);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return builder.build();
+    }
+
+    private static void readPackages(JsonParser parser, ResolutionBuilder builder) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String path = parser.currentName();
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            builder.startPackage(path);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.VALUE_STRING && "version".equals(field)) {
+                    builder.version(parser.getText());
+                } else if (value == JsonToken.VALUE_STRING && "license".equals(field)) {
+                    builder.license(parser.getText());
+                } else if (value == JsonToken.START_OBJECT && "dependencies".equals(field)) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = parser.currentName();
+                        if (parser.nextToken() == JsonToken.VALUE_STRING) {
+                            builder.dependency(name, parser.getText());
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else if (value == JsonToken.START_OBJECT && "devDependencies".equals(field)) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = parser.currentName();
+                        if (parser.nextToken() == JsonToken.VALUE_STRING) {
+                            builder.devDependency(name, parser.getText());
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            builder.endPackage();
+        }
+    }
+
+    static NodeResolutionResult read(Json.Document document) {
+        ResolutionBuilder builder = new ResolutionBuilder();
+        Json.JsonObject packages = object(member(document.getValue(), "packages"));
+        if (packages == null) {
+            return builder.build();
+        }
+        for (Json p : packages.getMembers()) {
+            if (!(p instanceof Json.Member)) {
+                continue;
+            }
+            Json.Member pkgMember = (Json.Member) p;
+            String path = key(pkgMember);
+            Json.JsonObject pkg = object(pkgMember.getValue());
+            if (path == null || pkg == null) {
+                continue;
+            }
+            builder.startPackage(path);
+            for (Json f : pkg.getMembers()) {
+                if (!(f instanceof Json.Member)) {
+                    continue;
+                }
+                Json.Member field = (Json.Member) f;
+                String fieldName = key(field);
+                if ("version".equals(fieldName)) {
+                    String version = string(field.getValue());
+                    if (version != null) {
+                        builder.version(version);
+                    }
+                } else if ("license".equals(fieldName)) {
+                    String license = string(field.getValue());
+                    if (license != null) {
+                        builder.license(license);
+                    }
+                } else if ("dependencies".equals(fieldName) || "devDependencies".equals(fieldName)) {
+                    Json.JsonObject requirements = object(field.getValue());
+                    if (requirements == null) {
+                        continue;
+                    }
+                    boolean dev = "devDependencies".equals(fieldName);
+                    for (Json r : requirements.getMembers()) {
+                        if (!(r instanceof Json.Member)) {
+                            continue;
+                        }
+                        String name = key((Json.Member) r);
+                        String requested = string(((Json.Member) r).getValue());
+                        if (name == null || requested == null) {
+                            continue;
+                        }
+                        if (dev) {
+                            builder.devDependency(name, requested);
+                        } else {
+                            builder.dependency(name, requested);
+                        }
+                    }
+                }
+            }
+            builder.endPackage();
+        }
+        return builder.build();
+    }
+
+    static @Nullable Json member(Json object, String name) {
+        if (object instanceof Json.JsonObject) {
+            for (Json m : ((Json.JsonObject) object).getMembers()) {
+                if (m instanceof Json.Member && name.equals(key((Json.Member) m))) {
+                    return ((Json.Member) m).getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    static Json.@Nullable JsonObject object(@Nullable Json json) {
+        return json instanceof Json.JsonObject ? (Json.JsonObject) json : null;
+    }
+
+    static @Nullable String key(Json.Member member) {
+        if (member.getKey() instanceof Json.Literal) {
+            return string((Json.Literal) member.getKey());
+        } else if (member.getKey() instanceof Json.Identifier) {
+            return ((Json.Identifier) member.getKey()).getName();
+        }
+        return null;
+    }
+
+    static @Nullable String string(@Nullable Json json) {
+        if (json instanceof Json.Literal) {
+            Object value = ((Json.Literal) json).getValue();
+            return value instanceof String ? (String) value : null;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs;
+
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.Validated;
+import org.openrewrite.nodejs.internal.VersionRangeCache;
+import org.openrewrite.semver.VersionComparator;
+
+import java.util.*;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Assembles a {@link NodeResolutionResult} from the entries of a lockfile's {@code packages} section as
+ * they are encountered, so that readers never have to materialize the lockfile as a whole.
+ * <p>
+ * The keys of the {@code packages} section are install locations such as {@code node_modules/a/node_modules/b},
+ * which are kept in a trie of nested {@code node_modules} directories. Once all packages have been seen, each
+ * requirement is linked to the package Node would load for it: the one in the {@code node_modules} directory
+ * of the requiring package, or failing that of the nearest ancestor that has one. The order in which packages
+ * appear does not matter.
+ */
+class ResolutionBuilder {
+    private static final String NODE_MODULES = "node_modules/";
+    private static final String NESTED_NODE_MODULES = "/node_modules/";
+
+    private final List<Dependency> dependencies = new ArrayList<>();
+    private final List<Dependency> devDependencies = new ArrayList<>();
+
+    private final Location root = new Location(null);
+
+    /**
+     * The workspace packages of npm workspaces, whose install paths aren't in any {@code node_modules} directory.
+     */
+    private final Map<String, NodeResolutionResult.Workspace> workspaces = new HashMap<>();
+
+    /**
+     * Requirements of installed packages, and the location of the package requiring each of them.
+     */
+    private final List<Dependency> requirements = new ArrayList<>();
+    private final List<Location> requiredFrom = new ArrayList<>();
+
+    private @Nullable String path;
+    private @Nullable Location location;
+    private @Nullable String version;
+    private @Nullable String license;
+    private List<Dependency> transitive = emptyList();
+    private List<Dependency> workspaceDevDependencies = emptyList();
+
+    void startPackage(String path) {
+        this.path = path;
+        this.location = path.isEmpty() ? root : locate(path);
+        this.version = null;
+        this.license = null;
+        this.transitive = emptyList();
+        this.workspaceDevDependencies = emptyList();
+    }
+
+    void version(String version) {
+        this.version = version;
+    }
+
+    void license(String license) {
+        this.license = license;
+    }
+
+    void dependency(String name, String requested) {
+        Dependency d = requirement(name, requested);
+        if (d == null) {
+            return;
+        }
+        if (isRoot()) {
+            dependencies.add(d);
+        } else {
+            if (transitive.isEmpty()) {
+                transitive = new ArrayList<>();
+            }
+            transitive.add(d);
+        }
+    }
+
+    void devDependency(String name, String requested) {
+        // the development dependencies of installed packages are never installed themselves
+        if (isRoot()) {
+            Dependency d = requirement(name, requested);
+            if (d != null) {
+                devDependencies.add(d);
+            }
+        } else if (isWorkspace()) {
+            Dependency d = requirement(name, requested);
+            if (d != null) {
+                if (workspaceDevDependencies.isEmpty()) {
+                    workspaceDevDependencies = new ArrayList<>();
+                }
+                workspaceDevDependencies.add(d);
+            }
+        }
+    }
+
+    void endPackage() {
+        String p = path;
+        Location l = location;
+        if (p != null && l != null && l != root) {
+            l.installed = new ResolvedDependency(nameOf(p), version, license, transitive);
+            if (isWorkspace()) {
+                workspaces.put(p, new NodeResolutionResult.Workspace(transitive, workspaceDevDependencies));
+            }
+        }
+        path = null;
+        location = null;
+    }
+
+    NodeResolutionResult build() {
+        for (int i = 0; i < requirements.size(); i++) {
+            Dependency requirement = requirements.get(i);
+            ResolvedDependency resolved = requiredFrom.get(i).lookup(requirement.getName());
+            if (resolved != null) {
+                requirement.unsafeSetResolved(resolved);
+            }
+        }
+        return new NodeResolutionResult(dependencies, devDependencies, workspaces);
+    }
+
+    private boolean isRoot() {
+        return "".equals(path);
+    }
+
+    private boolean isWorkspace() {
+        return path != null && !path.isEmpty() && !path.startsWith(NODE_MODULES) && !path.contains(NESTED_NODE_MODULES);
+    }
+
+    private @Nullable Dependency requirement(String name, String requested) {
+        Validated<VersionComparator> validatedVersion = VersionRangeCache.validate(requested);
+        if (!validatedVersion.isValid()) {
+            return null;
+        }
+        Dependency d = new Dependency(name, validatedVersion.getValue(), null);
+        requirements.add(d);
+        requiredFrom.add(location == null ? root : location);
+        return d;
+    }
+
+    /**
+     * @return The location for an install path, creating it and any enclosing location that hasn't been
+     * seen yet. Enclosing packages may appear after the packages nested inside them.
+     */
+    private Location locate(String path) {
+        Location l = root;
+        int start = 0;
+        if (path.startsWith(NODE_MODULES)) {
+            start = NODE_MODULES.length();
+        } else {
+            // a workspace package, which has a node_modules directory of its own
+            int end = path.indexOf(NESTED_NODE_MODULES);
+            l = l.child(end == -1 ? path : path.substring(0, end));
+            if (end == -1) {
+                return l;
+            }
+            start = end + NESTED_NODE_MODULES.length();
+        }
+        while (true) {
+            int end = path.indexOf(NESTED_NODE_MODULES, start);
+            l = l.child(end == -1 ? path.substring(start) : path.substring(start, end));
+            if (end == -1) {
+                return l;
+            }
+            start = end + NESTED_NODE_MODULES.length();
+        }
+    }
+
+    /**
+     * @return The name a package is installed under, which is whatever follows the last {@code node_modules}
+     * directory of its path, including any scope.
+     */
+    static String nameOf(String path) {
+        int nested = path.lastIndexOf(NESTED_NODE_MODULES);
+        if (nested != -1) {
+            return path.substring(nested + NESTED_NODE_MODULES.length());
+        }
+        return path.startsWith(NODE_MODULES) ? path.substring(NODE_MODULES.length()) : path;
+    }
+
+    /**
+     * A directory that may contain a {@code node_modules} directory: the project root, or an installed package.
+     */
+    private static class Location {
+        final @Nullable Location parent;
+
+        /**
+         * The packages installed in this location's {@code node_modules} directory, by name.
+         */
+        @Nullable
+        Map<String, Location> children;
+
+        @Nullable
+        ResolvedDependency installed;
+
+        Location(@Nullable Location parent) {
+            this.parent = parent;
+        }
+
+        Location child(String name) {
+            if (children == null) {
+                children = new HashMap<>(4);
+            }
+            return children.computeIfAbsent(name, n -> new Location(this));
+        }
+
+        @Nullable
+        ResolvedDependency lookup(String name) {
+            for (Location l = this; l != null; l = l.parent) {
+                if (l.children != null) {
+                    Location child = l.children.get(name);
+                    if (child != null && child.installed != null) {
+                        return child.installed;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
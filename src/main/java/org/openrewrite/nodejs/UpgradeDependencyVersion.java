@@ -15,6 +15,7 @@
  */
 package org.openrewrite.nodejs;
 
+import io.micrometer.core.instrument.Timer;
 import lombok.EqualsAndHashCode;
 import lombok.Value;
 import org.openrewrite.*;
@@ -22,11 +23,16 @@ import org.openrewrite.internal.StringUtils;
 import org.openrewrite.json.JsonIsoVisitor;
 import org.openrewrite.json.JsonPathMatcher;
 import org.openrewrite.json.tree.Json;
+import org.openrewrite.nodejs.internal.NodeEvent;
+import org.openrewrite.nodejs.internal.NodeMetrics;
 import org.openrewrite.nodejs.search.IsPackageJson;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 @Value
 @EqualsAndHashCode(callSuper = false)
 public class UpgradeDependencyVersion extends Recipe {
+    private static final String UPGRADED = "org.openrewrite.nodejs.upgraded";
 
     @Option(displayName = "Name pattern",
             description = "Name glob pattern used to match dependencies",
@@ -57,7 +63,22 @@ public class UpgradeDependencyVersion extends Recipe {
 
         JsonPathMatcher dependency = new JsonPathMatcher("$.dependencies");
         JsonPathMatcher devDependencies = new JsonPathMatcher("$.devDependencies");
+        String recipe = getName();
         return Preconditions.check(new IsPackageJson<>(), new JsonIsoVisitor<ExecutionContext>() {
+            @Override
+            public Json.Document visitDocument(Json.Document document, ExecutionContext ctx) {
+                NodeMetrics metrics = NodeMetrics.of(ctx);
+                Timer.Sample sample = metrics.start();
+                NodeEvent event = NodeEvent.dependencyUpgrade();
+                AtomicInteger upgraded = new AtomicInteger();
+                getCursor().putMessage(UPGRADED, upgraded);
+                Json.Document d = super.visitDocument(document, ctx);
+                metrics.count(NodeMetrics.UPGRADES, recipe, upgraded.get());
+                metrics.stop(sample, NodeMetrics.EDIT, recipe);
+                event.end(document.getSourcePath(), upgraded.get());
+                return d;
+            }
+
             @Override
             public Json.Member visitMember(Json.Member member, ExecutionContext ctx) {
                 Json.Member m = super.visitMember(member, ctx);
@@ -65,12 +86,13 @@ public class UpgradeDependencyVersion extends Recipe {
                 if (maybeDependencies != null && (dependency.matches(maybeDependencies) || devDependencies.matches(maybeDependencies))) {
                     String name = ((Json.Literal) member.getKey()).getValue().toString();
                     if (StringUtils.matchesGlob(name, namePattern)) {
-                        Json.Literal versionLiteral = (Json.Literal) member.getValue();
-                        String requestedVersion = versionLiteral.getValue().toString();
-                        if (!requestedVersion.equals(version)) {
-                            m = m.withValue(versionLiteral
-                                    .withValue(version)
-                                    .withSource("\"" + version + "\""));
+                        Json.Member upgraded = upgrade(m, version);
+                        if (upgraded != m) {
+                            AtomicInteger count = getCursor().getNearestMessage(UPGRADED);
+                            if (count != null) {
+                                count.incrementAndGet();
+                            }
+                            m = upgraded;
                         }
                     }
                 }
@@ -78,4 +100,15 @@ public class UpgradeDependencyVersion extends Recipe {
             }
         });
     }
+
+    static Json.Member upgrade(Json.Member member, String version) {
+        Json.Literal versionLiteral = (Json.Literal) member.getValue();
+        String requestedVersion = versionLiteral.getValue().toString();
+        if (!requestedVersion.equals(version)) {
+            return member.withValue(versionLiteral
+                    .withValue(version)
+                    .withSource("\"" + version + "\""));
+        }
+        return member;
+    }
 }
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs;
+
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.Validated;
+import org.openrewrite.json.tree.Json;
+import org.openrewrite.nodejs.internal.VersionRangeCache;
+import org.openrewrite.semver.VersionComparator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.*;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Reads a {@code yarn.lock} line by line in a single pass, keeping only the packages and their requirements,
+ * so that memory is proportional to the number of packages rather than to the length of the lockfile.
+ * <p>
+ * Both the classic format of Yarn 1 and the YAML format of Yarn 2 and later are understood. Either way, a
+ * lockfile is a flat list of entries, each headed by the descriptors, such as {@code lodash@^4.17.20}, that
+ * it resolves:
+ * <pre>
+ * "@babel/code-frame@^7.0.0", "@babel/code-frame@^7.10.4":     "@babel/code-frame@npm:^7.0.0":
+ *   version "7.12.13"                                           version: 7.12.13
+ *   dependencies:                                               dependencies:
+ *     "@babel/highlight" "^7.12.13"                               "@babel/highlight": ^7.12.13
+ * </pre>
+ * Requirements are linked to the entry whose descriptors include the requirement's name and range, once all
+ * entries have been seen. Ranges of the default {@code npm:} protocol are compared without it, as Yarn 2 writes
+ * it in descriptors but not in requirements. Requirements whose range isn't a valid
+ * {@link org.openrewrite.semver.Semver} selector, such as {@code ^1.0.0 || ^2.0.0}, are dropped, as they are
+ * when reading a {@code package-lock.json}.
+ */
+class YarnLockReader {
+    private static final String NPM_PROTOCOL = "npm:";
+    private static final String WORKSPACE_PROTOCOL = "@workspace:";
+
+    /**
+     * The entry resolving each descriptor.
+     */
+    private final Map<String, ResolvedDependency> resolvedByDescriptor = new HashMap<>();
+
+    /**
+     * Requirements and the descriptor each of them is resolved by.
+     */
+    private final List<Dependency> requirements = new ArrayList<>();
+    private final List<String> requiredDescriptors = new ArrayList<>();
+
+    private final List<String> descriptors = new ArrayList<>();
+    private @Nullable String name;
+    private @Nullable String version;
+    private List<Dependency> transitive = emptyList();
+
+    private YarnLockReader() {
+    }
+
+    static NodeResolutionResult read(BufferedReader lines, Json.Document packageJson) throws IOException {
+        YarnLockReader reader = new YarnLockReader();
+        List<Dependency> dependencies = reader.projectRequirements(packageJson, "dependencies");
+        List<Dependency> devDependencies = reader.projectRequirements(packageJson, "devDependencies");
+
+        String section = null;
+        for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            int indent = 0;
+            while (indent < line.length() && line.charAt(indent) == ' ') {
+                indent++;
+            }
+            if (indent == line.length() || line.charAt(indent) == '#') {
+                continue;
+            }
+            if (indent == 0) {
+                reader.endEntry();
+                reader.startEntry(line);
+                section = null;
+            } else if (indent == 2) {
+                String key = key(line, indent);
+                String value = value(line, indent);
+                if (value.isEmpty()) {
+                    section = key;
+                } else {
+                    section = null;
+                    if ("version".equals(key)) {
+                        reader.version = value;
+                    }
+                }
+            } else if ("dependencies".equals(section) || "optionalDependencies".equals(section)) {
+                reader.requirement(key(line, indent), value(line, indent));
+            }
+        }
+        reader.endEntry();
+
+        reader.link();
+        return new NodeResolutionResult(dependencies, devDependencies);
+    }
+
+    /**
+     * @param header A line such as {@code "a@^1.0.0", "a@^1.1.0":}, listing the descriptors of an entry.
+     */
+    private void startEntry(String header) {
+        int end = header.endsWith(":") ? header.length() - 1 : header.length();
+        int start = 0;
+        while (start < end) {
+            int comma = header.indexOf(',', start);
+            if (comma == -1 || comma > end) {
+                comma = end;
+            }
+            String descriptor = unquote(header.substring(start, comma).trim());
+            int at = descriptor.indexOf('@', 1);
+            // entries that aren't packages, such as __metadata, have no name and range
+            if (at != -1) {
+                if (name == null) {
+                    name = descriptor.substring(0, at);
+                }
+                descriptors.add(descriptor(descriptor.substring(0, at), descriptor.substring(at + 1)));
+            }
+            start = comma + 1;
+        }
+    }
+
+    private void requirement(String requiredName, String range) {
+        if (name == null) {
+            return;
+        }
+        Dependency d = dependency(requiredName, range);
+        if (d != null) {
+            if (transitive.isEmpty()) {
+                transitive = new ArrayList<>();
+            }
+            transitive.add(d);
+        }
+    }
+
+    private void endEntry() {
+        if (name != null) {
+            ResolvedDependency resolved = new ResolvedDependency(name, version, null, transitive);
+            for (String descriptor : descriptors) {
+                resolvedByDescriptor.put(descriptor, resolved);
+            }
+        }
+        descriptors.clear();
+        name = null;
+        version = null;
+        transitive = emptyList();
+    }
+
+    private void link() {
+        for (int i = 0; i < requirements.size(); i++) {
+            ResolvedDependency resolved = resolvedByDescriptor.get(requiredDescriptors.get(i));
+            if (resolved != null) {
+                requirements.get(i).unsafeSetResolved(resolved);
+            }
+        }
+    }
+
+    /**
+     * A {@code yarn.lock} doesn't record what the project itself requires, so it is read from the package.json.
+     */
+    private List<Dependency> projectRequirements(Json.Document packageJson, String field) {
+        Json.JsonObject requirements = PackageLockReader.object(PackageLockReader.member(packageJson.getValue(), field));
+        if (requirements == null) {
+            return emptyList();
+        }
+        List<Dependency> dependencies = new ArrayList<>(requirements.getMembers().size());
+        for (Json r : requirements.getMembers()) {
+            if (!(r instanceof Json.Member)) {
+                continue;
+            }
+            String requiredName = PackageLockReader.key((Json.Member) r);
+            String range = PackageLockReader.string(((Json.Member) r).getValue());
+            Dependency d = requiredName == null || range == null ? null : dependency(requiredName, range);
+            if (d != null) {
+                dependencies.add(d);
+            }
+        }
+        return dependencies;
+    }
+
+    private @Nullable Dependency dependency(String requiredName, String range) {
+        String withoutProtocol = range.startsWith(NPM_PROTOCOL) ? range.substring(NPM_PROTOCOL.length()) : range;
+        Validated<VersionComparator> validatedVersion = VersionRangeCache.validate(withoutProtocol);
+        if (!validatedVersion.isValid()) {
+            return null;
+        }
+        Dependency d = new Dependency(requiredName, validatedVersion.getValue(), null);
+        requirements.add(d);
+        requiredDescriptors.add(descriptor(requiredName, range));
+        return d;
+    }
+
+    /**
+     * @return The paths of the workspaces a {@code yarn.lock} has entries for, relative to its directory, such as
+     * {@code packages/a}. Only Yarn 2 and later record workspaces, with descriptors like {@code a@workspace:packages/a}.
+     */
+    static Set<String> workspaces(String yarnLock) {
+        Set<String> workspaces = new HashSet<>();
+        for (int i = yarnLock.indexOf(WORKSPACE_PROTOCOL); i != -1; i = yarnLock.indexOf(WORKSPACE_PROTOCOL, i)) {
+            i += WORKSPACE_PROTOCOL.length();
+            int end = i;
+            while (end < yarnLock.length() && "\",: \n\r".indexOf(yarnLock.charAt(end)) == -1) {
+                end++;
+            }
+            workspaces.add(yarnLock.substring(i, end));
+        }
+        return workspaces;
+    }
+
+    private static String descriptor(String name, String range) {
+        return name + '@' + (range.startsWith(NPM_PROTOCOL) ? range.substring(NPM_PROTOCOL.length()) : range);
+    }
+
+    /**
+     * @return The key of a line such as {@code "@babel/highlight" "^7.12.13"} or {@code version: 7.12.13}.
+     */
+    private static String key(String line, int start) {
+        if (line.charAt(start) == '"') {
+            int end = line.indexOf('"', start + 1);
+            return line.substring(start + 1, end == -1 ? line.length() : end);
+        }
+        int end = start;
+        while (end < line.length() && line.charAt(end) != ' ' && line.charAt(end) != ':') {
+            end++;
+        }
+        return line.substring(start, end);
+    }
+
+    /**
+     * @return The value following the key of a line, without quotes, or an empty string when the line starts a section.
+     */
+    private static String value(String line, int start) {
+        int i = start;
+        if (line.charAt(i) == '"') {
+            int end = line.indexOf('"', i + 1);
+            i = end == -1 ? line.length() : end + 1;
+        } else {
+            while (i < line.length() && line.charAt(i) != ' ' && line.charAt(i) != ':') {
+                i++;
+            }
+        }
+        while (i < line.length() && (line.charAt(i) == ':' || line.charAt(i) == ' ')) {
+            i++;
+        }
+        return unquote(line.substring(i).trim());
+    }
+
+    private static String unquote(String s) {
+        int start = s.startsWith("\"") ? 1 : 0;
+        int end = s.length() > start && s.endsWith("\"") ? s.length() - 1 : s.length();
+        return s.substring(start, end);
+    }
+}
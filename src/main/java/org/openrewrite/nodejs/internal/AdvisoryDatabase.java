@@ -0,0 +1,98 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs.internal;
+
+import java.lang.ref.SoftReference;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds a single {@link AdvisoryIndex} for the whole JVM, so that long-lived workers running many recipes
+ * don't reload the same immutable advisory data for every run.
+ * <p>
+ * The index is loaded on first use and held through a {@link SoftReference}, so the garbage collector may
+ * reclaim it under memory pressure once no recipe run is referencing it anymore. It is reloaded transparently
+ * the next time it is requested.
+ */
+public class AdvisoryDatabase {
+    private static final Object LOCK = new Object();
+    private static final AtomicInteger LOAD_COUNT = new AtomicInteger();
+
+    private static volatile SoftReference<AdvisoryIndex> index = new SoftReference<>(null);
+    private static volatile long loadTimeNanos;
+
+    private AdvisoryDatabase() {
+    }
+
+    public static AdvisoryIndex get() {
+        AdvisoryIndex i = index.get();
+        if (i == null) {
+            synchronized (LOCK) {
+                i = index.get();
+                if (i == null) {
+                    NodeEvent event = NodeEvent.advisoryLoad();
+                    long start = System.nanoTime();
+                    i = AdvisoryIndex.load();
+                    loadTimeNanos = System.nanoTime() - start;
+                    event.end(null, i.getPackageCount());
+                    LOAD_COUNT.incrementAndGet();
+                    index = new SoftReference<>(i);
+                }
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Drops the shared index. Recipe runs already holding it are unaffected.
+     */
+    public static void release() {
+        synchronized (LOCK) {
+            index = new SoftReference<>(null);
+        }
+    }
+
+    public static boolean isLoaded() {
+        return index.get() != null;
+    }
+
+    /**
+     * @return How long the most recent load took.
+     */
+    public static Duration getLoadTime() {
+        return Duration.ofNanos(loadTimeNanos);
+    }
+
+    /**
+     * @return How many times the index has been loaded, which is more than once when it has been released
+     * or reclaimed in between.
+     */
+    public static int getLoadCount() {
+        return LOAD_COUNT.get();
+    }
+
+    /**
+     * @return An estimate of the heap retained by the index, including the advisories decoded so far.
+     * A memory mapped index only counts its decoded advisories, as the mapping itself lives off-heap.
+     */
+    public static long getResidentSize() {
+        AdvisoryIndex i = index.get();
+        if (i == null) {
+            return 0;
+        }
+        return (i.isHeapResident() ? i.size() : 0) + i.getDecodedSizeEstimate();
+    }
+}
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs.internal;
+
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.nodejs.Vulnerability;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A read-only view over the binary advisory index produced by {@link AdvisoryIndexCompiler}.
+ * <p>
+ * The index consists of a header, a table of deduplicated UTF-8 strings, a name table sorted by
+ * package name and a table of fixed size advisory records grouped by package. Opening the index only
+ * reads the header; advisories are decoded into {@link Vulnerability} instances the first time the
+ * package they belong to is looked up.
+ */
+public class AdvisoryIndex {
+    static final int MAGIC = 0x4E504D41; // "NPMA"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 8 * 4;
+    static final int NAME_ENTRY_SIZE = 3 * 4;
+    static final int RECORD_SIZE = 4 + 8 + 4 + 4 + 4 + 4 + 1 + 4;
+    static final int NO_STRING = -1;
+    static final long NO_DATE = Long.MIN_VALUE;
+
+    private static final String INDEX_RESOURCE = "/advisories-npm.idx";
+    private static final String CSV_RESOURCE = "/advisories-npm.csv";
+    private static final Vulnerability.Severity[] SEVERITIES = Vulnerability.Severity.values();
+
+    private final ByteBuffer buffer;
+    private final int stringCount;
+    private final int packageCount;
+    private final int advisoryCount;
+    private final int blobStart;
+    private final int nameTableStart;
+    private final int recordTableStart;
+
+    /**
+     * Strings are decoded lazily. Racing threads may decode the same string twice, which is harmless
+     * since the result is the same immutable value.
+     */
+    private final @Nullable String[] strings;
+
+    private final Map<String, AdvisoryRanges> rangesByPackage = new ConcurrentHashMap<>();
+    private final VersionParser versionParser = new VersionParser();
+    private final AtomicLong decodedBytes = new AtomicLong();
+
+    private AdvisoryIndex(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IllegalStateException("Not an advisory index");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IllegalStateException("Unsupported advisory index version " + buffer.getInt(4));
+        }
+        this.stringCount = buffer.getInt(8);
+        this.packageCount = buffer.getInt(12);
+        this.advisoryCount = buffer.getInt(16);
+        this.blobStart = buffer.getInt(20);
+        this.nameTableStart = buffer.getInt(24);
+        this.recordTableStart = buffer.getInt(28);
+        this.strings = new String[stringCount];
+    }
+
+    public static AdvisoryIndex read(ByteBuffer buffer) {
+        return new AdvisoryIndex(buffer.asReadOnlyBuffer());
+    }
+
+    /**
+     * Opens the precompiled index on the classpath. When the index is on the file system it is memory mapped,
+     * otherwise (e.g. when packaged in a jar) its bytes are read once. If the index has not been compiled,
+     * for example when running from an IDE that does not delegate to the build, it is compiled from the CSV.
+     */
+    public static AdvisoryIndex load() {
+        try {
+            URL index = AdvisoryIndex.class.getResource(INDEX_RESOURCE);
+            if (index != null && "file".equals(index.getProtocol())) {
+                try (FileChannel channel = FileChannel.open(Paths.get(index.toURI()), StandardOpenOption.READ)) {
+                    return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+                }
+            } else if (index != null) {
+                try (InputStream is = index.openStream()) {
+                    return read(ByteBuffer.wrap(readAllBytes(is)));
+                }
+            }
+            try (InputStream csv = AdvisoryIndex.class.getResourceAsStream(CSV_RESOURCE)) {
+                if (csv == null) {
+                    throw new IllegalStateException("Unable to find " + CSV_RESOURCE + " on the classpath");
+                }
+                return read(ByteBuffer.wrap(AdvisoryIndexCompiler.compile(csv)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param packageName The name of an npm package.
+     * @return The advisories affecting any version of the package, in the order they appear in the advisory database.
+     */
+    public List<Vulnerability> getAdvisories(String packageName) {
+        AdvisoryRanges ranges = getRanges(packageName);
+        return ranges == null ? Collections.emptyList() : ranges.getAdvisories();
+    }
+
+    /**
+     * @param packageName The name of an npm package.
+     * @param version     A resolved version of the package.
+     * @return The advisories whose affected version range contains the version, in the order they appear in the
+     * advisory database.
+     */
+    public List<Vulnerability> getAdvisories(String packageName, String version) {
+        AdvisoryRanges ranges = getRanges(packageName);
+        if (ranges == null) {
+            return Collections.emptyList();
+        }
+        return ranges.affecting(versionParser.transform(version));
+    }
+
+    private @Nullable AdvisoryRanges getRanges(String packageName) {
+        AdvisoryRanges ranges = rangesByPackage.get(packageName);
+        if (ranges == null) {
+            List<Vulnerability> advisories = decodePackage(packageName);
+            if (advisories.isEmpty()) {
+                // most packages have no advisories, so don't let the cache grow with every name looked up
+                return null;
+            }
+            ranges = new AdvisoryRanges(advisories, versionParser);
+            AdvisoryRanges existing = rangesByPackage.putIfAbsent(packageName, ranges);
+            if (existing != null) {
+                return existing;
+            }
+            // object headers and references of the list, the range arrays and each Vulnerability
+            decodedBytes.addAndGet(128 + advisories.size() * 96L);
+        }
+        return ranges;
+    }
+
+    public int getPackageCount() {
+        return packageCount;
+    }
+
+    public int getAdvisoryCount() {
+        return advisoryCount;
+    }
+
+    /**
+     * @return The size of the encoded index in bytes.
+     */
+    public int size() {
+        return buffer.capacity();
+    }
+
+    /**
+     * @return Whether the encoded index lives on the heap, as opposed to being memory mapped.
+     */
+    public boolean isHeapResident() {
+        return !buffer.isDirect();
+    }
+
+    /**
+     * @return A rough estimate of the heap occupied by the advisories decoded so far.
+     */
+    public long getDecodedSizeEstimate() {
+        return decodedBytes.get();
+    }
+
+    private List<Vulnerability> decodePackage(String packageName) {
+        int name = findPackage(packageName.getBytes(StandardCharsets.UTF_8));
+        if (name < 0) {
+            return Collections.emptyList();
+        }
+        int entry = nameTableStart + name * NAME_ENTRY_SIZE;
+        int first = buffer.getInt(entry + 4);
+        int count = buffer.getInt(entry + 8);
+        List<Vulnerability> advisories = new ArrayList<>(count);
+        for (int i = first; i < first + count; i++) {
+            advisories.add(decodeRecord(i));
+        }
+        return Collections.unmodifiableList(advisories);
+    }
+
+    private Vulnerability decodeRecord(int record) {
+        int offset = recordTableStart + record * RECORD_SIZE;
+        long published = buffer.getLong(offset + 4);
+        byte severity = buffer.get(offset + 28);
+        return new Vulnerability(
+                string(buffer.getInt(offset)),
+                published == NO_DATE ? null : ZonedDateTime.ofInstant(Instant.ofEpochSecond(published), ZoneOffset.UTC),
+                string(buffer.getInt(offset + 12)),
+                string(buffer.getInt(offset + 16)),
+                string(buffer.getInt(offset + 20)),
+                string(buffer.getInt(offset + 24)),
+                severity < 0 ? null : SEVERITIES[severity],
+                string(buffer.getInt(offset + 29))
+        );
+    }
+
+    private int findPackage(byte[] name) {
+        int low = 0;
+        int high = packageCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareToString(buffer.getInt(nameTableStart + mid * NAME_ENTRY_SIZE), name);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares the encoded string with the given id to the UTF-8 bytes of another string without decoding it.
+     */
+    private int compareToString(int id, byte[] other) {
+        int start = blobStart + buffer.getInt(HEADER_SIZE + id * 4);
+        int length = buffer.getInt(HEADER_SIZE + (id + 1) * 4) - buffer.getInt(HEADER_SIZE + id * 4);
+        for (int i = 0; i < length && i < other.length; i++) {
+            int cmp = (buffer.get(start + i) & 0xFF) - (other[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - other.length;
+    }
+
+    private @Nullable String string(int id) {
+        if (id == NO_STRING) {
+            return null;
+        }
+        String s = strings[id];
+        if (s == null) {
+            int start = buffer.getInt(HEADER_SIZE + id * 4);
+            int end = buffer.getInt(HEADER_SIZE + (id + 1) * 4);
+            byte[] utf8 = new byte[end - start];
+            for (int i = 0; i < utf8.length; i++) {
+                utf8[i] = buffer.get(blobStart + start + i);
+            }
+            s = new String(utf8, StandardCharsets.UTF_8);
+            strings[id] = s;
+            decodedBytes.addAndGet(40 + utf8.length);
+        }
+        return s;
+    }
+
+    /**
+     * Orders strings by their unsigned UTF-8 bytes, which is the order the name table is searched in.
+     */
+    static int compareUtf8(String s1, String s2) {
+        byte[] b1 = s1.getBytes(StandardCharsets.UTF_8);
+        byte[] b2 = s2.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < b1.length && i < b2.length; i++) {
+            int cmp = (b1[i] & 0xFF) - (b2[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return b1.length - b2.length;
+    }
+
+    private static byte[] readAllBytes(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = is.read(chunk)) != -1) {
+            out.write(chunk, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
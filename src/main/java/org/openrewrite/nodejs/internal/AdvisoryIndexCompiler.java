@@ -0,0 +1,173 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs.internal;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.nodejs.Vulnerability;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Compiles the advisory CSV into the binary layout read by {@link AdvisoryIndex}.
+ * <p>
+ * Runs as part of the build to produce {@code advisories-npm.idx}, and at runtime as a fallback
+ * when the precompiled index is not on the classpath.
+ */
+public class AdvisoryIndexCompiler {
+
+    private AdvisoryIndexCompiler() {
+    }
+
+    /**
+     * @param args the advisory CSV to read and the index file to write.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: AdvisoryIndexCompiler <advisories.csv> <advisories.idx>");
+        }
+        Path out = Paths.get(args[1]);
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+        try (InputStream csv = Files.newInputStream(Paths.get(args[0]));
+             OutputStream idx = new BufferedOutputStream(Files.newOutputStream(out))) {
+            idx.write(compile(csv));
+        }
+    }
+
+    public static byte[] compile(InputStream csv) throws IOException {
+        return compile(readCsv(csv));
+    }
+
+    static List<Vulnerability> readCsv(InputStream csv) throws IOException {
+        CsvMapper csvMapper = new CsvMapper();
+        csvMapper.registerModule(new JavaTimeModule());
+        List<Vulnerability> vulnerabilities = new ArrayList<>();
+        try (MappingIterator<Vulnerability> vs = csvMapper.readerWithSchemaFor(Vulnerability.class).readValues(csv)) {
+            while (vs.hasNextValue()) {
+                vulnerabilities.add(vs.nextValue());
+            }
+        }
+        return vulnerabilities;
+    }
+
+    static byte[] compile(List<Vulnerability> vulnerabilities) throws IOException {
+        // Group by package, keeping the order advisories appear in the CSV within each package
+        Map<String, List<Vulnerability>> byPackage = new TreeMap<>(AdvisoryIndex::compareUtf8);
+        for (Vulnerability v : vulnerabilities) {
+            byPackage.computeIfAbsent(v.getPackageName(), n -> new ArrayList<>()).add(v);
+        }
+
+        StringTable strings = new StringTable();
+        int[] nameTable = new int[byPackage.size() * 3];
+        int[] records = new int[vulnerabilities.size() * 6];
+        long[] published = new long[vulnerabilities.size()];
+        byte[] severities = new byte[vulnerabilities.size()];
+
+        int name = 0;
+        int record = 0;
+        for (Map.Entry<String, List<Vulnerability>> pkg : byPackage.entrySet()) {
+            nameTable[name * 3] = strings.id(pkg.getKey());
+            nameTable[name * 3 + 1] = record;
+            nameTable[name * 3 + 2] = pkg.getValue().size();
+            name++;
+            for (Vulnerability v : pkg.getValue()) {
+                records[record * 6] = strings.id(v.getCve());
+                records[record * 6 + 1] = strings.id(v.getSummary());
+                records[record * 6 + 2] = strings.id(v.getPackageName());
+                records[record * 6 + 3] = strings.id(v.getIntroducedVersion());
+                records[record * 6 + 4] = strings.id(v.getFixedVersion());
+                records[record * 6 + 5] = strings.id(v.getCwes());
+                published[record] = v.getPublished() == null ? AdvisoryIndex.NO_DATE : v.getPublished().toEpochSecond();
+                severities[record] = v.getSeverity() == null ? -1 : (byte) v.getSeverity().ordinal();
+                record++;
+            }
+        }
+
+        byte[] blob = strings.blob.toByteArray();
+        int stringOffsetsStart = AdvisoryIndex.HEADER_SIZE;
+        int blobStart = stringOffsetsStart + (strings.offsets.size() + 1) * 4;
+        int nameTableStart = blobStart + blob.length;
+        int recordTableStart = nameTableStart + byPackage.size() * AdvisoryIndex.NAME_ENTRY_SIZE;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(recordTableStart + record * AdvisoryIndex.RECORD_SIZE);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(AdvisoryIndex.MAGIC);
+        out.writeInt(AdvisoryIndex.FORMAT_VERSION);
+        out.writeInt(strings.offsets.size());
+        out.writeInt(byPackage.size());
+        out.writeInt(record);
+        out.writeInt(blobStart);
+        out.writeInt(nameTableStart);
+        out.writeInt(recordTableStart);
+
+        for (int offset : strings.offsets) {
+            out.writeInt(offset);
+        }
+        out.writeInt(blob.length);
+        out.write(blob);
+
+        for (int entry : nameTable) {
+            out.writeInt(entry);
+        }
+
+        for (int i = 0; i < record; i++) {
+            out.writeInt(records[i * 6]);
+            out.writeLong(published[i]);
+            out.writeInt(records[i * 6 + 1]);
+            out.writeInt(records[i * 6 + 2]);
+            out.writeInt(records[i * 6 + 3]);
+            out.writeInt(records[i * 6 + 4]);
+            out.writeByte(severities[i]);
+            out.writeInt(records[i * 6 + 5]);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deduplicates strings so that CVE identifiers, summaries and version numbers shared between
+     * advisory records are only stored once.
+     */
+    private static class StringTable {
+        final Map<String, Integer> ids = new HashMap<>();
+        final List<Integer> offsets = new ArrayList<>();
+        final ByteArrayOutputStream blob = new ByteArrayOutputStream();
+
+        int id(@Nullable String s) {
+            if (s == null) {
+                return AdvisoryIndex.NO_STRING;
+            }
+            Integer id = ids.get(s);
+            if (id == null) {
+                id = offsets.size();
+                offsets.add(blob.size());
+                byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+                blob.write(utf8, 0, utf8.length);
+                ids.put(s, id);
+            }
+            return id;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs.internal;
+
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.internal.StringUtils;
+import org.openrewrite.nodejs.Vulnerability;
+
+import java.util.*;
+
+/**
+ * The affected version ranges of all advisories of one package, sorted by introduced version so that the
+ * advisories covering a given version can be found by binary search.
+ * <p>
+ * Each range is {@code [introducedVersion, fixedVersion)}, where a blank introduced version is unbounded below
+ * and a blank fixed version is unbounded above. Since ranges may overlap, every position also records the
+ * greatest fixed version of all ranges up to and including it. Walking back from the last range that starts
+ * at or below the version can stop as soon as that running maximum is at or below the version.
+ */
+class AdvisoryRanges {
+    private static final Comparator<Version> COMPARATOR = new StaticVersionComparator();
+
+    private final List<Vulnerability> advisories;
+
+    private final @Nullable Version[] introduced;
+    private final @Nullable Version[] fixed;
+    private final @Nullable Version[] maxFixed;
+
+    /**
+     * Position in {@link #advisories} of the range at each sorted position.
+     */
+    private final int[] order;
+
+    AdvisoryRanges(List<Vulnerability> advisories, VersionParser versionParser) {
+        this.advisories = advisories;
+        int n = advisories.size();
+
+        Integer[] sorted = new Integer[n];
+        Version[] introducedByAdvisory = new Version[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = i;
+            introducedByAdvisory[i] = parse(advisories.get(i).getIntroducedVersion(), versionParser);
+        }
+        Arrays.sort(sorted, (i1, i2) -> compareLowerBounds(introducedByAdvisory[i1], introducedByAdvisory[i2]));
+
+        this.introduced = new Version[n];
+        this.fixed = new Version[n];
+        this.maxFixed = new Version[n];
+        this.order = new int[n];
+        boolean unbounded = false;
+        for (int i = 0; i < n; i++) {
+            int advisory = sorted[i];
+            order[i] = advisory;
+            introduced[i] = introducedByAdvisory[advisory];
+            Version f = parse(advisories.get(advisory).getFixedVersion(), versionParser);
+            fixed[i] = f;
+            if (f == null) {
+                unbounded = true;
+            }
+            if (!unbounded) {
+                Version previous = i == 0 ? null : maxFixed[i - 1];
+                maxFixed[i] = previous == null || COMPARATOR.compare(f, previous) > 0 ? f : previous;
+            }
+        }
+    }
+
+    List<Vulnerability> getAdvisories() {
+        return advisories;
+    }
+
+    /**
+     * @return The advisories whose affected range contains the version, in database order.
+     */
+    List<Vulnerability> affecting(Version version) {
+        int end = upperBound(version);
+        int[] hits = null;
+        int hitCount = 0;
+        for (int i = end - 1; i >= 0; i--) {
+            Version max = maxFixed[i];
+            if (max != null && COMPARATOR.compare(max, version) <= 0) {
+                break;
+            }
+            Version f = fixed[i];
+            if (f == null || COMPARATOR.compare(version, f) < 0) {
+                if (hits == null) {
+                    hits = new int[end];
+                }
+                hits[hitCount++] = order[i];
+            }
+        }
+        if (hits == null) {
+            return Collections.emptyList();
+        }
+        Arrays.sort(hits, 0, hitCount);
+        List<Vulnerability> affecting = new ArrayList<>(hitCount);
+        for (int i = 0; i < hitCount; i++) {
+            affecting.add(advisories.get(hits[i]));
+        }
+        return affecting;
+    }
+
+    /**
+     * @return The number of ranges whose introduced version is at or below the version.
+     */
+    private int upperBound(Version version) {
+        int low = 0;
+        int high = introduced.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            Version lower = introduced[mid];
+            if (lower == null || COMPARATOR.compare(lower, version) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int compareLowerBounds(@Nullable Version v1, @Nullable Version v2) {
+        if (v1 == null) {
+            return v2 == null ? 0 : -1;
+        }
+        return v2 == null ? 1 : COMPARATOR.compare(v1, v2);
+    }
+
+    private static @Nullable Version parse(@Nullable String version, VersionParser versionParser) {
+        return StringUtils.isBlank(version) ? null : versionParser.transform(version);
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs.internal;
+
+import org.openrewrite.internal.StringUtils;
+
+import java.util.*;
+
+import static java.util.Collections.emptySet;
+
+/**
+ * Matches package names against many glob patterns at once and returns the categories of the patterns that
+ * match.
+ * <p>
+ * Patterns without wildcards are looked up in a hash map and patterns whose only wildcard is a trailing
+ * {@code *}, such as {@code @testing-library/*}, are compiled into a prefix trie, so that matching a name
+ * costs a single walk over its characters no matter how many patterns there are. Any other pattern falls back
+ * to {@link StringUtils#matchesGlob(String, String)}.
+ */
+public class NamePatternMatcher {
+    private final Map<String, Set<String>> exact = new HashMap<>();
+    private final PrefixNode prefixes = new PrefixNode();
+    private final Map<String, Set<String>> globs = new LinkedHashMap<>();
+
+    /**
+     * @param patternsByCategory name glob patterns keyed by the category they belong to. The same pattern may
+     *                           appear in more than one category.
+     */
+    public NamePatternMatcher(Map<String, ? extends Collection<String>> patternsByCategory) {
+        for (Map.Entry<String, ? extends Collection<String>> category : patternsByCategory.entrySet()) {
+            for (String pattern : category.getValue()) {
+                int wildcard = indexOfWildcard(pattern);
+                Set<String> categories;
+                if (wildcard == -1) {
+                    categories = exact.computeIfAbsent(pattern, p -> new LinkedHashSet<>());
+                } else if (wildcard == pattern.length() - 1 && pattern.charAt(wildcard) == '*') {
+                    categories = prefixes.add(pattern, wildcard);
+                } else {
+                    categories = globs.computeIfAbsent(pattern, p -> new LinkedHashSet<>());
+                }
+                categories.add(category.getKey());
+            }
+        }
+    }
+
+    /**
+     * @return the categories of every pattern matching the name, empty if none match. The returned set must
+     * not be modified.
+     */
+    public Set<String> categoriesOf(String name) {
+        Set<String> categories = union(exact.getOrDefault(name, emptySet()), prefixes.categoriesOfPrefixesOf(name));
+        for (Map.Entry<String, Set<String>> glob : globs.entrySet()) {
+            if (StringUtils.matchesGlob(name, glob.getKey())) {
+                categories = union(categories, glob.getValue());
+            }
+        }
+        return categories;
+    }
+
+    private static Set<String> union(Set<String> a, Set<String> b) {
+        if (b.isEmpty() || a.containsAll(b)) {
+            return a;
+        }
+        if (a.isEmpty()) {
+            return b;
+        }
+        Set<String> union = new LinkedHashSet<>(a);
+        union.addAll(b);
+        return union;
+    }
+
+    private static int indexOfWildcard(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static class PrefixNode {
+        private static final PrefixNode[] NO_CHILDREN = new PrefixNode[0];
+
+        /**
+         * Sorted, so that children can be found by binary search.
+         */
+        char[] keys = new char[0];
+        PrefixNode[] children = NO_CHILDREN;
+        Set<String> categories = emptySet();
+
+        Set<String> add(String pattern, int length) {
+            PrefixNode node = this;
+            for (int i = 0; i < length; i++) {
+                node = node.childOrCreate(pattern.charAt(i));
+            }
+            if (node.categories.isEmpty()) {
+                node.categories = new LinkedHashSet<>();
+            }
+            return node.categories;
+        }
+
+        Set<String> categoriesOfPrefixesOf(String name) {
+            Set<String> categories = emptySet();
+            PrefixNode node = this;
+            for (int i = 0; ; i++) {
+                categories = union(categories, node.categories);
+                if (i == name.length()) {
+                    return categories;
+                }
+                int child = Arrays.binarySearch(node.keys, name.charAt(i));
+                if (child < 0) {
+                    return categories;
+                }
+                node = node.children[child];
+            }
+        }
+
+        private PrefixNode childOrCreate(char c) {
+            int i = Arrays.binarySearch(keys, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            int insertAt = -i - 1;
+            char[] newKeys = new char[keys.length + 1];
+            PrefixNode[] newChildren = new PrefixNode[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newKeys[insertAt] = c;
+            PrefixNode child = new PrefixNode();
+            newChildren[insertAt] = child;
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            keys = newKeys;
+            children = newChildren;
+            return child;
+        }
+    }
+}
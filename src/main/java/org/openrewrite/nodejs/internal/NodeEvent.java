@@ -0,0 +1,64 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs.internal;
+
+import org.jspecify.annotations.Nullable;
+
+import java.nio.file.Path;
+
+/**
+ * A Java Flight Recorder event spanning one phase of the Node.js recipes, carrying the source path and the number
+ * of packages involved, so that slow repositories can be correlated with GC pauses and allocation samples after
+ * the fact.
+ * <p>
+ * Flight Recorder events are only available from Java 11 on, where the multi-release jar replaces this class with
+ * one that records them. On Java 8 events are never recorded, and every method returns immediately.
+ */
+public class NodeEvent {
+    private static final NodeEvent DISABLED = new NodeEvent();
+
+    private NodeEvent() {
+    }
+
+    public static NodeEvent lockfileParse() {
+        return DISABLED;
+    }
+
+    public static NodeEvent advisoryLoad() {
+        return DISABLED;
+    }
+
+    public static NodeEvent vulnerabilityScan() {
+        return DISABLED;
+    }
+
+    public static NodeEvent vulnerabilityReport() {
+        return DISABLED;
+    }
+
+    public static NodeEvent dependencyUpgrade() {
+        return DISABLED;
+    }
+
+    /**
+     * Ends the event and records it, unless recording is disabled or the event is below the configured threshold.
+     *
+     * @param sourcePath   The source file the phase worked on, if any.
+     * @param packageCount The number of packages resolved, matched or upgraded.
+     */
+    public void end(@Nullable Path sourcePath, long packageCount) {
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs.internal;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.nodejs.NodeMetricsExecutionContextView;
+
+/**
+ * Records timers and counters to the registry of an {@link ExecutionContext}, if it has one.
+ * <p>
+ * Without a registry, {@link #of(ExecutionContext)} returns a shared instance and every method returns
+ * immediately: timers are not started, so not even the clock is read, and meters are neither looked up nor created.
+ * Methods take fixed arguments rather than varargs tags, so that calls don't allocate either.
+ */
+public class NodeMetrics {
+    public static final String ADVISORIES_LOAD = "rewrite.nodejs.advisories.load";
+    public static final String LOCKFILE_RESOLVE = "rewrite.nodejs.lockfile.resolve";
+    public static final String PACKAGES_RESOLVED = "rewrite.nodejs.packages.resolved";
+    public static final String SCAN = "rewrite.nodejs.scan";
+    public static final String ADVISORIES_MATCHED = "rewrite.nodejs.advisories.matched";
+    public static final String GENERATE = "rewrite.nodejs.generate";
+    public static final String EDIT = "rewrite.nodejs.edit";
+    public static final String UPGRADES = "rewrite.nodejs.upgrades";
+
+    private static final String RECIPE_TAG = "recipe";
+    private static final NodeMetrics NOOP = new NodeMetrics(null);
+
+    private final @Nullable MeterRegistry registry;
+
+    private NodeMetrics(@Nullable MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public static NodeMetrics of(ExecutionContext ctx) {
+        // read straight from the context, as wrapping it in a view would allocate on every call
+        MeterRegistry registry = ctx.getMessage(NodeMetricsExecutionContextView.METER_REGISTRY);
+        return registry == null ? NOOP : new NodeMetrics(registry);
+    }
+
+    /**
+     * @return A running timer sample, or {@code null} without a registry.
+     */
+    public Timer.@Nullable Sample start() {
+        return registry == null ? null : Timer.start(registry);
+    }
+
+    public void stop(Timer.@Nullable Sample sample, String name) {
+        if (sample != null && registry != null) {
+            sample.stop(registry.timer(name));
+        }
+    }
+
+    public void stop(Timer.@Nullable Sample sample, String name, String recipe) {
+        if (sample != null && registry != null) {
+            sample.stop(registry.timer(name, RECIPE_TAG, recipe));
+        }
+    }
+
+    public void count(String name, double amount) {
+        if (registry != null && amount > 0) {
+            registry.counter(name).increment(amount);
+        }
+    }
+
+    public void count(String name, String recipe, double amount) {
+        if (registry != null && amount > 0) {
+            registry.counter(name, RECIPE_TAG, recipe).increment(amount);
+        }
+    }
+}
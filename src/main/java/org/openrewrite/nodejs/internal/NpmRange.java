@@ -0,0 +1,268 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs.internal;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An npm version range compiled into intervals over packed {@code major.minor.patch} versions, as produced
+ * by {@link Version#getPacked()}, so that testing whether a version is admitted is a few long comparisons.
+ * <p>
+ * Supports exact and partial versions, x-ranges, {@code ~}, {@code ^}, the comparison operators, hyphen ranges,
+ * intersections separated by whitespace and unions separated by {@code ||}. Ranges mentioning pre-release or
+ * build metadata don't compile, and only versions without a qualifier can be tested, as these are the only
+ * ones that can be packed. Callers fall back to a general purpose comparison for anything else.
+ */
+public class NpmRange {
+    private static final long UNBOUNDED = Long.MAX_VALUE;
+
+    /**
+     * Pairs of an inclusive lower bound and an exclusive upper bound, one for each alternative of the range.
+     */
+    private final long[] bounds;
+
+    private NpmRange(long[] bounds) {
+        this.bounds = bounds;
+    }
+
+    /**
+     * @return The compiled range, or {@code null} when the range is not supported.
+     */
+    public static @Nullable NpmRange compile(String range) {
+        List<String> alternatives = new ArrayList<>();
+        int start = 0;
+        for (int bar = range.indexOf("||"); bar != -1; bar = range.indexOf("||", start)) {
+            alternatives.add(range.substring(start, bar));
+            start = bar + 2;
+        }
+        alternatives.add(range.substring(start));
+
+        long[] bounds = new long[alternatives.size() * 2];
+        for (int i = 0; i < alternatives.size(); i++) {
+            if (!compileIntersection(alternatives.get(i).trim(), bounds, i * 2)) {
+                return null;
+            }
+        }
+        return new NpmRange(bounds);
+    }
+
+    /**
+     * @return The versions a patch version update can reach from a packed version, which is every greater
+     * version with the same major and minor version.
+     */
+    public static NpmRange patchUpdatesOf(long packed) {
+        return new NpmRange(new long[]{packed + 1, VersionParser.nextMinor(packed)});
+    }
+
+    public boolean admits(long packed) {
+        for (int i = 0; i < bounds.length; i += 2) {
+            if (packed >= bounds[i] && packed < bounds[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The least packed version admitted, or -1 if the range admits no version at all.
+     */
+    public long getMinimum() {
+        long minimum = -1;
+        for (int i = 0; i < bounds.length; i += 2) {
+            if (bounds[i] < bounds[i + 1] && (minimum == -1 || bounds[i] < minimum)) {
+                minimum = bounds[i];
+            }
+        }
+        return minimum;
+    }
+
+    private static boolean compileIntersection(String range, long[] bounds, int at) {
+        long lower = 0;
+        long upper = UNBOUNDED;
+
+        int hyphen = range.indexOf(" - ");
+        if (hyphen != -1) {
+            long[] from = partial(range.substring(0, hyphen).trim());
+            long[] to = partial(range.substring(hyphen + 3).trim());
+            if (from == null || to == null) {
+                return false;
+            }
+            bounds[at] = lowest(from);
+            bounds[at + 1] = after(to);
+            return bounds[at] != -1 && bounds[at + 1] != -1;
+        }
+
+        String[] tokens = range.isEmpty() ? new String[0] : range.split("\\s+");
+        for (int i = 0; i < tokens.length; i++) {
+            String comparator = tokens[i];
+            // operators may be separated from their version by whitespace
+            if (i + 1 < tokens.length && isOperator(comparator)) {
+                comparator += tokens[++i];
+            }
+            long[] interval = comparator(comparator);
+            if (interval == null) {
+                return false;
+            }
+            lower = Math.max(lower, interval[0]);
+            upper = Math.min(upper, interval[1]);
+        }
+        bounds[at] = lower;
+        bounds[at + 1] = upper;
+        return true;
+    }
+
+    private static boolean isOperator(String token) {
+        switch (token) {
+            case "<":
+            case "<=":
+            case ">":
+            case ">=":
+            case "=":
+            case "~":
+            case "~>":
+            case "^":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static long @Nullable [] comparator(String comparator) {
+        String operator;
+        if (comparator.startsWith(">=") || comparator.startsWith("<=") || comparator.startsWith("~>")) {
+            operator = comparator.substring(0, 2);
+        } else if (!comparator.isEmpty() && "<>=~^".indexOf(comparator.charAt(0)) != -1) {
+            operator = comparator.substring(0, 1);
+        } else {
+            operator = "";
+        }
+        long[] p = partial(comparator.substring(operator.length()));
+        if (p == null) {
+            return null;
+        }
+        long lowest = lowest(p);
+        long lower;
+        long upper;
+        switch (operator) {
+            case ">=":
+                lower = lowest;
+                upper = UNBOUNDED;
+                break;
+            case ">":
+                lower = p[3] == 0 ? UNBOUNDED : after(p);
+                upper = UNBOUNDED;
+                break;
+            case "<=":
+                lower = 0;
+                upper = after(p);
+                break;
+            case "<":
+                lower = 0;
+                upper = p[3] == 0 ? 0 : lowest;
+                break;
+            case "~":
+            case "~>":
+                lower = lowest;
+                upper = p[3] <= 1 ? after(p) : VersionParser.pack(p[0], p[1] + 1, 0);
+                break;
+            case "^":
+                lower = lowest;
+                if (p[3] == 0) {
+                    upper = UNBOUNDED;
+                } else if (p[0] > 0 || p[3] == 1) {
+                    upper = VersionParser.pack(p[0] + 1, 0, 0);
+                } else if (p[1] > 0 || p[3] == 2) {
+                    upper = VersionParser.pack(0, p[1] + 1, 0);
+                } else {
+                    upper = VersionParser.pack(0, 0, p[2] + 1);
+                }
+                break;
+            default:
+                lower = lowest;
+                upper = after(p);
+        }
+        return lower == -1 || upper == -1 ? null : new long[]{lower, upper};
+    }
+
+    /**
+     * @return The major, minor and patch version, followed by how many of them are given rather than
+     * being wildcards or left out, or {@code null} if this is not a partial version without qualifiers.
+     */
+    private static long @Nullable [] partial(String version) {
+        String v = version;
+        if (v.startsWith("=")) {
+            v = v.substring(1);
+        }
+        if (v.startsWith("v")) {
+            v = v.substring(1);
+        }
+        long[] p = new long[4];
+        if (v.isEmpty()) {
+            return p;
+        }
+        int start = 0;
+        for (int i = 0; i < 3; i++) {
+            int dot = v.indexOf('.', start);
+            String part = dot == -1 ? v.substring(start) : v.substring(start, dot);
+            if (part.equals("x") || part.equals("X") || part.equals("*")) {
+                return p;
+            }
+            if (part.isEmpty() || part.length() > 7) {
+                return null;
+            }
+            for (int c = 0; c < part.length(); c++) {
+                if (part.charAt(c) < '0' || part.charAt(c) > '9') {
+                    return null;
+                }
+            }
+            p[i] = Long.parseLong(part);
+            p[3] = i + 1;
+            if (dot == -1) {
+                return p;
+            }
+            start = dot + 1;
+        }
+        // more than three parts
+        return null;
+    }
+
+    /**
+     * @return The least packed version matching a partial version.
+     */
+    private static long lowest(long[] partial) {
+        return VersionParser.pack(partial[0], partial[1], partial[2]);
+    }
+
+    /**
+     * @return The least packed version greater than every version matching a partial version.
+     */
+    private static long after(long[] partial) {
+        switch ((int) partial[3]) {
+            case 0:
+                return UNBOUNDED;
+            case 1:
+                return VersionParser.pack(partial[0] + 1, 0, 0);
+            case 2:
+                return VersionParser.pack(partial[0], partial[1] + 1, 0);
+            default:
+                long packed = lowest(partial);
+                return packed == -1 ? -1 : packed + 1;
+        }
+    }
+}
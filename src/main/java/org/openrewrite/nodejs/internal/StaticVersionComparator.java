@@ -17,7 +17,6 @@ package org.openrewrite.nodejs.internal;
 
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -43,62 +42,64 @@ public class StaticVersionComparator implements Comparator<Version> {
 
     /**
      * Compares 2 versions. Algorithm is inspired by PHP version_compare one.
+     * <p>
+     * Everything a comparison needs is precomputed when a version is parsed, so comparing doesn't allocate.
      */
     @Override
     public int compare(Version version1, Version version2) {
+        long packed1 = version1.getPacked();
+        long packed2 = version2.getPacked();
+        if (packed1 >= 0 && packed2 >= 0) {
+            return Long.compare(packed1, packed2);
+        }
         if (version1.equals(version2)) {
             return 0;
         }
 
         String[] parts1 = version1.getParts();
         String[] parts2 = version2.getParts();
-        Long[] numericParts1 = version1.getNumericParts();
-        Long[] numericParts2 = version2.getNumericParts();
+        long[] numbers1 = version1.getNumbers();
+        long[] numbers2 = version2.getNumbers();
 
         int i = 0;
         for (; i < parts1.length && i < parts2.length; i++) {
+            boolean is1Number = version1.isNumeric(i);
+            boolean is2Number = version2.isNumeric(i);
+
+            if (is1Number && is2Number) {
+                int result = Long.compare(numbers1[i], numbers2[i]);
+                if (result == 0) {
+                    continue;
+                }
+                return result;
+            }
             String part1 = parts1[i];
             String part2 = parts2[i];
-
-            Long numericPart1 = numericParts1[i];
-            Long numericPart2 = numericParts2[i];
-
-            boolean is1Number = numericPart1 != null;
-            boolean is2Number = numericPart2 != null;
-
             if (part1.equals(part2)) {
                 continue;
             }
-            if (is1Number && !is2Number) {
+            if (is1Number) {
                 return 1;
             }
-            if (is2Number && !is1Number) {
+            if (is2Number) {
                 return -1;
             }
-            if (is1Number && is2Number) {
-                int result = numericPart1.compareTo(numericPart2);
-                if (result == 0) {
-                    continue;
-                }
-                return result;
-            }
             // both are strings, we compare them taking into account special meaning
-            Integer sm1 = SPECIAL_MEANINGS.get(part1.toLowerCase(Locale.US));
-            Integer sm2 = SPECIAL_MEANINGS.get(part2.toLowerCase(Locale.US));
-            if (sm1 != null) {
-                sm2 = sm2 == null ? 0 : sm2;
-                return sm1 - sm2;
+            int sm1 = version1.getRank(i);
+            int sm2 = version2.getRank(i);
+            if (sm1 != Version.NO_RANK) {
+                return sm1 - (sm2 == Version.NO_RANK ? 0 : sm2);
             }
-            if (sm2 != null) {
+            if (sm2 != Version.NO_RANK) {
                 return -sm2;
             }
             return part1.compareTo(part2);
         }
         if (i < parts1.length) {
-            return numericParts1[i] == null ? -1 : 1;
+            return version1.isNumeric(i) ? 1 : -1;
         }
         if (i < parts2.length) {
-            return numericParts2[i] == null ? 1 : -1;
+            return version2.isNumeric(i) ? -1 : 1;
         }
 
         return 0;
@@ -16,6 +16,11 @@
 package org.openrewrite.nodejs.internal;
 
 public interface Version {
+    /**
+     * Marks the rank of a part that is numeric, or whose qualifier has no special meaning.
+     */
+    int NO_RANK = Integer.MIN_VALUE;
+
     /**
      * Returns the original {@link String} representation of the version.
      */
@@ -27,7 +32,21 @@ public interface Version {
     String[] getParts();
 
     /**
-     * Returns all the numeric parts of this version as {@link Long}, with nulls in non-numeric positions. eg. 1.2.3 returns [1,2,3] or 1.2-beta4 returns [1,2,null,4].
+     * Returns the value of each numeric part, with zeros in non-numeric positions. e.g. 1.2-beta4 returns [1,2,0,4].
+     */
+    long[] getNumbers();
+
+    boolean isNumeric(int part);
+
+    /**
+     * Returns the rank of a qualifier with a special meaning, such as {@code rc} or {@code final}, so that it
+     * doesn't have to be looked up on every comparison, or {@link #NO_RANK}.
+     */
+    int getRank(int part);
+
+    /**
+     * Returns a plain {@code major.minor.patch} version packed into a single non-negative long, ordered
+     * the same as the version, or -1 for any other version.
      */
-    Long[] getNumericParts();
+    long getPacked();
 }
@@ -15,27 +15,62 @@
  */
 package org.openrewrite.nodejs.internal;
 
-import org.jspecify.annotations.Nullable;
-
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Locale;
 
 /**
  * Copied from org.openrewrite.java.dependencies.internal.VersionParser.
+ * <p>
+ * Parsed versions are cached for the whole JVM rather than per parser, in a cache bounded in size so that
+ * long-lived workers parsing many distinct versions don't grow without limit.
  */
 public class VersionParser {
-    private final Map<String, Version> cache = new ConcurrentHashMap<>();
+    private static final int MAXIMUM_SIZE = 65_536;
+
+    private static final BoundedCache<String, Version> CACHE = new BoundedCache<>(MAXIMUM_SIZE);
+
+    private static final int PACKED_BITS = 21;
+    private static final long PACKED_MAX = (1L << PACKED_BITS) - 1;
 
     public VersionParser() {
     }
 
-    public @Nullable Version transform(String original) {
-        return cache.computeIfAbsent(original, this::parse);
+    public Version transform(String original) {
+        return CACHE.computeIfAbsent(original, VersionParser::parse);
+    }
+
+    public static int getCacheSize() {
+        return CACHE.size();
+    }
+
+    public static double getCacheHitRate() {
+        return CACHE.getHitRate();
+    }
+
+    public static long getCacheEvictionCount() {
+        return CACHE.getEvictionCount();
+    }
+
+    /**
+     * @return A {@code major.minor.patch} version packed into a single non-negative long, ordered the same
+     * as the version, or -1 when one of its parts is too large to be packed.
+     */
+    static long pack(long major, long minor, long patch) {
+        if (major < 0 || major > PACKED_MAX || minor < 0 || minor > PACKED_MAX || patch < 0 || patch > PACKED_MAX) {
+            return -1;
+        }
+        return major << (2 * PACKED_BITS) | minor << PACKED_BITS | patch;
+    }
+
+    /**
+     * @return The packed version following every version with the same major and minor version.
+     */
+    static long nextMinor(long packed) {
+        return ((packed >>> PACKED_BITS) + 1) << PACKED_BITS;
     }
 
-    private Version parse(String original) {
+    private static Version parse(String original) {
         List<String> parts = new ArrayList<>();
         boolean digit = false;
         int startPart = 0;
@@ -79,18 +114,42 @@ public class VersionParser {
     private static class DefaultVersion implements Version {
         private final String source;
         private final String[] parts;
-        private final Long[] numericParts;
+        private final long[] numbers;
+
+        /**
+         * Bit {@code i % 64} of word {@code i / 64} is set when part {@code i} is numeric.
+         */
+        private final long[] numericMask;
+
+        private final int[] ranks;
+        private final long packed;
 
         public DefaultVersion(String source, List<String> parts) {
             this.source = source;
             this.parts = parts.toArray(new String[0]);
-            this.numericParts = new Long[this.parts.length];
-            for (int i = 0; i < parts.size(); i++) {
+            this.numbers = new long[this.parts.length];
+            this.numericMask = new long[(this.parts.length + 63) >>> 6];
+            this.ranks = new int[this.parts.length];
+            for (int i = 0; i < this.parts.length; i++) {
+                ranks[i] = NO_RANK;
                 try {
-                    this.numericParts[i] = Long.parseLong(this.parts[i]);
+                    numbers[i] = Long.parseLong(this.parts[i]);
+                    numericMask[i >>> 6] |= 1L << i;
                 } catch (NumberFormatException ignored) {
+                    Integer rank = StaticVersionComparator.SPECIAL_MEANINGS.get(this.parts[i].toLowerCase(Locale.US));
+                    if (rank != null) {
+                        ranks[i] = rank;
+                    }
                 }
             }
+            this.packed = pack();
+        }
+
+        private long pack() {
+            if (parts.length != 3 || numericMask[0] != 0b111) {
+                return -1;
+            }
+            return VersionParser.pack(numbers[0], numbers[1], numbers[2]);
         }
 
         @Override
@@ -121,8 +180,23 @@ public class VersionParser {
         }
 
         @Override
-        public Long[] getNumericParts() {
-            return numericParts;
+        public long[] getNumbers() {
+            return numbers;
+        }
+
+        @Override
+        public boolean isNumeric(int part) {
+            return (numericMask[part >>> 6] & 1L << part) != 0;
+        }
+
+        @Override
+        public int getRank(int part) {
+            return ranks[part];
+        }
+
+        @Override
+        public long getPacked() {
+            return packed;
         }
 
         @Override
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs.internal;
+
+import org.openrewrite.Validated;
+import org.openrewrite.semver.Semver;
+import org.openrewrite.semver.VersionComparator;
+
+/**
+ * Compiles npm version ranges once per JVM. The same handful of ranges, such as {@code ^4.17.21}, are requested
+ * by many packages of a lockfile and by many lockfiles, and compiling them is a noticeable part of resolving a
+ * lockfile.
+ * <p>
+ * Invalid ranges are cached as well, so a malformed range is only reported invalid once.
+ */
+public class VersionRangeCache {
+    private static final int MAXIMUM_SIZE = 16_384;
+
+    private static final BoundedCache<String, Validated<VersionComparator>> RANGES = new BoundedCache<>(MAXIMUM_SIZE);
+
+    private VersionRangeCache() {
+    }
+
+    /**
+     * @param range A version range, as requested in a package.json or lockfile.
+     * @return The same result as {@link Semver#validate(String, String)} without a metadata pattern.
+     */
+    public static Validated<VersionComparator> validate(String range) {
+        return RANGES.computeIfAbsent(range, r -> Semver.validate(r, null));
+    }
+
+    public static long getHitCount() {
+        return RANGES.getHitCount();
+    }
+
+    public static long getMissCount() {
+        return RANGES.getMissCount();
+    }
+
+    public static long getEvictionCount() {
+        return RANGES.getEvictionCount();
+    }
+
+    public static int size() {
+        return RANGES.size();
+    }
+}
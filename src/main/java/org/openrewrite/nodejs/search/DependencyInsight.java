@@ -15,26 +15,29 @@
  */
 package org.openrewrite.nodejs.search;
 
+import io.micrometer.core.instrument.Timer;
 import lombok.EqualsAndHashCode;
 import lombok.Value;
 import org.jspecify.annotations.Nullable;
 import org.openrewrite.*;
 import org.openrewrite.internal.StringUtils;
-import org.openrewrite.json.JsonIsoVisitor;
 import org.openrewrite.json.JsonPathMatcher;
 import org.openrewrite.json.JsonVisitor;
 import org.openrewrite.json.tree.Json;
 import org.openrewrite.marker.SearchResult;
 import org.openrewrite.nodejs.Dependency;
+import org.openrewrite.nodejs.LockfileResolutions;
 import org.openrewrite.nodejs.NodeResolutionResult;
+import org.openrewrite.nodejs.internal.NodeMetrics;
 import org.openrewrite.nodejs.table.DependenciesInUse;
 import org.openrewrite.semver.Semver;
 
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Collection;
+import java.util.Collections;
 
 @Value
 @EqualsAndHashCode(callSuper = false)
-public class DependencyInsight extends ScanningRecipe<AtomicReference<NodeResolutionResult>> {
+public class DependencyInsight extends ScanningRecipe<LockfileResolutions> {
     transient DependenciesInUse dependenciesInUse = new DependenciesInUse(this);
 
     @Option(displayName = "Name pattern",
@@ -78,27 +81,49 @@ public class DependencyInsight extends ScanningRecipe<AtomicReference<NodeResolu
     }
 
     @Override
-    public AtomicReference<NodeResolutionResult> getInitialValue(ExecutionContext ctx) {
-        return new AtomicReference<>();
+    public LockfileResolutions getInitialValue(ExecutionContext ctx) {
+        return new LockfileResolutions();
     }
 
     @Override
-    public TreeVisitor<?, ExecutionContext> getScanner(AtomicReference<NodeResolutionResult> resolution) {
-        return Preconditions.check(new IsPackageLockJson<>(), new JsonIsoVisitor<ExecutionContext>() {
+    public TreeVisitor<?, ExecutionContext> getScanner(LockfileResolutions resolutions) {
+        String recipe = getName();
+        return Preconditions.check(Preconditions.or(new IsPackageLockJson<>(), new IsYarnLock<>(), new IsPackageJson<>()), new TreeVisitor<Tree, ExecutionContext>() {
             @Override
-            public Json.Document visitDocument(Json.Document document, ExecutionContext ctx) {
-                resolution.set(NodeResolutionResult.fromPackageLockJson(document));
-                return document;
+            public @Nullable Tree visit(@Nullable Tree tree, ExecutionContext ctx) {
+                if (tree instanceof SourceFile) {
+                    NodeMetrics metrics = NodeMetrics.of(ctx);
+                    Timer.Sample sample = metrics.start();
+                    resolutions.scan((SourceFile) tree, ctx);
+                    metrics.stop(sample, NodeMetrics.SCAN, recipe);
+                }
+                return tree;
             }
         });
     }
 
     @Override
-    public TreeVisitor<?, ExecutionContext> getVisitor(AtomicReference<NodeResolutionResult> resolution) {
+    public Collection<SourceFile> generate(LockfileResolutions resolutions, ExecutionContext ctx) {
+        resolutions.resolveProjects(ctx);
+        return Collections.emptyList();
+    }
+
+    @Override
+    public TreeVisitor<?, ExecutionContext> getVisitor(LockfileResolutions resolutions) {
         JsonPathMatcher dependency = new JsonPathMatcher("$.dependencies");
         JsonPathMatcher devDependencies = new JsonPathMatcher("$.devDependencies");
+        String recipe = getName();
 
         return Preconditions.check(new IsPackageJson<>(), new JsonVisitor<ExecutionContext>() {
+            @Override
+            public Json visitDocument(Json.Document document, ExecutionContext ctx) {
+                NodeMetrics metrics = NodeMetrics.of(ctx);
+                Timer.Sample sample = metrics.start();
+                Json d = super.visitDocument(document, ctx);
+                metrics.stop(sample, NodeMetrics.EDIT, recipe);
+                return d;
+            }
+
             @Override
             public Json visitMember(Json.Member member, ExecutionContext ctx) {
                 Json m = super.visitMember(member, ctx);
@@ -107,8 +132,8 @@ public class DependencyInsight extends ScanningRecipe<AtomicReference<NodeResolu
                     String name = ((Json.Literal) member.getKey()).getValue().toString();
                     if (StringUtils.matchesGlob(name, namePattern)) {
                         String requestedVersion = ((Json.Literal) member.getValue()).getValue().toString();
-                        Dependency dependency = resolution.get() == null ? null :
-                                resolution.get().getDependency(name);
+                        NodeResolutionResult resolution = resolutions.get(getCursor().firstEnclosingOrThrow(Json.Document.class));
+                        Dependency dependency = resolution == null ? null : resolution.getDependency(name);
                         String resolvedVersion = dependency == null || dependency.getResolved() == null ?
                                 "" : dependency.getResolved().getVersion();
                         dependenciesInUse.insertRow(ctx, new DependenciesInUse.Row(
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs.search;
+
+import io.micrometer.core.instrument.Timer;
+import lombok.EqualsAndHashCode;
+import lombok.Value;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.*;
+import org.openrewrite.json.JsonPathMatcher;
+import org.openrewrite.json.JsonVisitor;
+import org.openrewrite.json.tree.Json;
+import org.openrewrite.marker.SearchResult;
+import org.openrewrite.nodejs.Dependency;
+import org.openrewrite.nodejs.LockfileResolutions;
+import org.openrewrite.nodejs.NodeResolutionResult;
+import org.openrewrite.nodejs.internal.NamePatternMatcher;
+import org.openrewrite.nodejs.internal.NodeMetrics;
+import org.openrewrite.nodejs.table.CategorizedDependencies;
+import org.openrewrite.nodejs.table.DependenciesInUse;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Value
+@EqualsAndHashCode(callSuper = false)
+public class DependencyInsights extends ScanningRecipe<LockfileResolutions> {
+    transient DependenciesInUse dependenciesInUse = new DependenciesInUse(this);
+    transient CategorizedDependencies categorizedDependencies = new CategorizedDependencies(this);
+
+    @Option(displayName = "Categories",
+            description = "Name glob patterns used to match dependencies, keyed by the category recorded with " +
+                          "every dependency they match. A pattern may belong to more than one category.",
+            example = "UI: [react, vue]")
+    Map<String, List<String>> categories;
+
+    @Override
+    public String getDisplayName() {
+        return "Node.js dependency insights";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Identify the Node.js dependencies matching any of a set of categorized name patterns. " +
+               "The patterns of all categories are matched in a single pass over each file.";
+    }
+
+    @Override
+    public LockfileResolutions getInitialValue(ExecutionContext ctx) {
+        return new LockfileResolutions();
+    }
+
+    @Override
+    public TreeVisitor<?, ExecutionContext> getScanner(LockfileResolutions resolutions) {
+        String recipe = getName();
+        return Preconditions.check(Preconditions.or(new IsPackageLockJson<>(), new IsYarnLock<>(), new IsPackageJson<>()), new TreeVisitor<Tree, ExecutionContext>() {
+            @Override
+            public @Nullable Tree visit(@Nullable Tree tree, ExecutionContext ctx) {
+                if (tree instanceof SourceFile) {
+                    NodeMetrics metrics = NodeMetrics.of(ctx);
+                    Timer.Sample sample = metrics.start();
+                    resolutions.scan((SourceFile) tree, ctx);
+                    metrics.stop(sample, NodeMetrics.SCAN, recipe);
+                }
+                return tree;
+            }
+        });
+    }
+
+    @Override
+    public Collection<SourceFile> generate(LockfileResolutions resolutions, ExecutionContext ctx) {
+        resolutions.resolveProjects(ctx);
+        return Collections.emptyList();
+    }
+
+    @Override
+    public TreeVisitor<?, ExecutionContext> getVisitor(LockfileResolutions resolutions) {
+        JsonPathMatcher dependency = new JsonPathMatcher("$.dependencies");
+        JsonPathMatcher devDependencies = new JsonPathMatcher("$.devDependencies");
+        NamePatternMatcher names = new NamePatternMatcher(categories);
+        String recipe = getName();
+
+        return Preconditions.check(new IsPackageJson<>(), new JsonVisitor<ExecutionContext>() {
+            @Override
+            public Json visitDocument(Json.Document document, ExecutionContext ctx) {
+                NodeMetrics metrics = NodeMetrics.of(ctx);
+                Timer.Sample sample = metrics.start();
+                Json d = super.visitDocument(document, ctx);
+                metrics.stop(sample, NodeMetrics.EDIT, recipe);
+                return d;
+            }
+
+            @Override
+            public Json visitMember(Json.Member member, ExecutionContext ctx) {
+                Json m = super.visitMember(member, ctx);
+                if (!(member.getKey() instanceof Json.Literal)) {
+                    return m;
+                }
+                String name = ((Json.Literal) member.getKey()).getValue().toString();
+                Set<String> matchedCategories = names.categoriesOf(name);
+                if (matchedCategories.isEmpty()) {
+                    return m;
+                }
+                Cursor maybeDependencies = getCursor().getParent(2);
+                if (maybeDependencies != null && (dependency.matches(maybeDependencies) || devDependencies.matches(maybeDependencies))) {
+                    String requestedVersion = ((Json.Literal) member.getValue()).getValue().toString();
+                    NodeResolutionResult resolution = resolutions.get(getCursor().firstEnclosingOrThrow(Json.Document.class));
+                    Dependency dependency = resolution == null ? null : resolution.getDependency(name);
+                    String resolvedVersion = dependency == null || dependency.getResolved() == null ?
+                            "" : dependency.getResolved().getVersion();
+                    dependenciesInUse.insertRow(ctx, new DependenciesInUse.Row(
+                            name,
+                            requestedVersion,
+                            resolvedVersion
+                    ));
+                    for (String category : matchedCategories) {
+                        categorizedDependencies.insertRow(ctx, new CategorizedDependencies.Row(
+                                category,
+                                name,
+                                requestedVersion,
+                                resolvedVersion
+                        ));
+                    }
+                    m = SearchResult.found(m, resolvedVersion);
+                }
+                return m;
+            }
+        });
+    }
+}
@@ -15,7 +15,10 @@
  */
 package org.openrewrite.nodejs.search;
 
+import io.micrometer.core.instrument.Timer;
+import org.jspecify.annotations.Nullable;
 import org.openrewrite.ExecutionContext;
+import org.openrewrite.FileAttributes;
 import org.openrewrite.Preconditions;
 import org.openrewrite.ScanningRecipe;
 import org.openrewrite.TreeVisitor;
@@ -23,12 +26,19 @@ import org.openrewrite.json.JsonPathMatcher;
 import org.openrewrite.json.JsonVisitor;
 import org.openrewrite.json.tree.Json;
 import org.openrewrite.marker.SearchResult;
+import org.openrewrite.nodejs.DependencyGraph;
+import org.openrewrite.nodejs.NodeResolutionCache;
+import org.openrewrite.nodejs.NodeResolutionResult;
+import org.openrewrite.nodejs.internal.NodeMetrics;
+import org.openrewrite.nodejs.table.LockfileStatistics;
 import org.openrewrite.nodejs.table.NodeProjects;
 
+import java.time.Duration;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class FindNodeProjects extends ScanningRecipe<AtomicBoolean> {
     private final transient NodeProjects nodeProjects = new NodeProjects(this);
+    private final transient LockfileStatistics lockfileStatistics = new LockfileStatistics(this);
 
     @Override
     public String getDisplayName() {
@@ -56,13 +66,63 @@ public class FindNodeProjects extends ScanningRecipe<AtomicBoolean> {
         });
     }
 
+    /**
+     * The resolution is shared through the {@link NodeResolutionCache}, so a lockfile that another recipe of the
+     * run already resolved isn't resolved again.
+     */
+    private void insertLockfileStatistics(Json.Document document, ExecutionContext ctx) {
+        NodeResolutionCache cache = NodeResolutionCache.getInstance(ctx);
+        NodeResolutionResult resolution = cache.resolve(document);
+        DependencyGraph graph = resolution.getGraph();
+        int maxDepth = 0;
+        for (int n = 1; n < graph.getNodeCount(); n++) {
+            maxDepth = Math.max(maxDepth, graph.getDepth(n));
+        }
+        FileAttributes attributes = document.getFileAttributes();
+        Duration parseTime = cache.getResolutionTime(document);
+        lockfileStatistics.insertRow(ctx, new LockfileStatistics.Row(
+                document.getSourcePath().toString(),
+                attributes == null ? null : attributes.getSize(),
+                graph.getNodeCount() - 1,
+                maxDepth,
+                lockfileVersion(document),
+                parseTime == null ? null : parseTime.toNanos(),
+                resolution.getRetainedSizeEstimate()
+        ));
+    }
+
+    private static @Nullable Integer lockfileVersion(Json.Document document) {
+        if (!(document.getValue() instanceof Json.JsonObject)) {
+            return null;
+        }
+        for (Json j : ((Json.JsonObject) document.getValue()).getMembers()) {
+            if (j instanceof Json.Member) {
+                Json.Member member = (Json.Member) j;
+                if (member.getKey() instanceof Json.Literal &&
+                    "lockfileVersion".equals(((Json.Literal) member.getKey()).getValue()) &&
+                    member.getValue() instanceof Json.Literal) {
+                    Object version = ((Json.Literal) member.getValue()).getValue();
+                    return version instanceof Number ? ((Number) version).intValue() : null;
+                }
+            }
+        }
+        return null;
+    }
+
     @Override
     public TreeVisitor<?, ExecutionContext> getVisitor(AtomicBoolean hasPackageLock) {
         JsonPathMatcher name = new JsonPathMatcher("$.name");
         JsonPathMatcher version = new JsonPathMatcher("$.version");
-        return Preconditions.check(new IsPackageJson<>(), new JsonVisitor<ExecutionContext>() {
+        String recipe = getName();
+        return Preconditions.check(Preconditions.or(new IsPackageJson<>(), new IsPackageLockJson<>()), new JsonVisitor<ExecutionContext>() {
             @Override
             public Json visitDocument(Json.Document document, ExecutionContext ctx) {
+                if (IsPackageLockJson.matches(document.getSourcePath())) {
+                    insertLockfileStatistics(document, ctx);
+                    return document;
+                }
+                NodeMetrics metrics = NodeMetrics.of(ctx);
+                Timer.Sample sample = metrics.start();
                 hasPackageLock.set(true);
                 super.visitDocument(document, ctx);
                 nodeProjects.insertRow(ctx, new NodeProjects.Row(
@@ -70,6 +130,7 @@ public class FindNodeProjects extends ScanningRecipe<AtomicBoolean> {
                         getCursor().getMessage("version", ""),
                         hasPackageLock.get()
                 ));
+                metrics.stop(sample, NodeMetrics.EDIT, recipe);
                 return SearchResult.found(document);
             }
 
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs.table;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreType;
+import lombok.Value;
+import org.openrewrite.Column;
+import org.openrewrite.DataTable;
+import org.openrewrite.Recipe;
+
+@JsonIgnoreType
+public class CategorizedDependencies extends DataTable<CategorizedDependencies.Row> {
+
+    public CategorizedDependencies(Recipe recipe) {
+        super(recipe, "Categorized dependencies",
+                "Dependencies in use that belong to a category of insights.");
+    }
+
+    @Value
+    public static class Row {
+        @Column(displayName = "Category",
+                description = "The category of the insight that matched the dependency.")
+        String category;
+
+        @Column(displayName = "Name",
+                description = "The name of the node package.")
+        String name;
+
+        @Column(displayName = "Requested version",
+                description = "The requested version.")
+        String requestedVersion;
+
+        @Column(displayName = "Version",
+                description = "The resolved version.")
+        String version;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs.table;
+
+import lombok.Value;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.Column;
+import org.openrewrite.DataTable;
+import org.openrewrite.Recipe;
+
+public class LockfileStatistics extends DataTable<LockfileStatistics.Row> {
+
+    public LockfileStatistics(Recipe recipe) {
+        super(recipe, "Lockfile statistics",
+                "The size of each `package-lock.json` and the cost of resolving it, to find the lockfiles responsible for slow runs and heap peaks.");
+    }
+
+    @Value
+    public static class Row {
+        @Column(displayName = "Source path",
+                description = "The path of the `package-lock.json`.")
+        String sourcePath;
+
+        @Column(displayName = "Size (bytes)",
+                description = "The size of the lockfile, if the parser recorded its file attributes.")
+        @Nullable
+        Long size;
+
+        @Column(displayName = "Package count",
+                description = "The number of installed packages the project depends on, directly or transitively.")
+        int packageCount;
+
+        @Column(displayName = "Maximum depth",
+                description = "The depth of the most deeply nested requirement. Zero when there are only direct dependencies.")
+        int maxDepth;
+
+        @Column(displayName = "Lockfile version",
+                description = "The `lockfileVersion` of the lockfile.")
+        @Nullable
+        Integer lockfileVersion;
+
+        @Column(displayName = "Parse time (ns)",
+                description = "The time taken to resolve the lockfile's packages and requirements, if the resolution of this very lockfile is still cached.")
+        @Nullable
+        Long parseTime;
+
+        @Column(displayName = "Retained size estimate (bytes)",
+                description = "A rough estimate of the heap retained by the resolved packages and requirements.")
+        long retainedSizeEstimate;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs.internal;
+
+import jdk.jfr.*;
+import org.jspecify.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+/**
+ * The Java 11 variant of the main source set's class of the same name, recording Java Flight Recorder events.
+ * Both classes share one fully qualified name on purpose: the rest of the library is compiled against the main
+ * source set's class, and the multi-release jar swaps in this one at runtime. Their public methods must stay the same.
+ * <p>
+ * Events that aren't enabled in any recording cost a check of whether their type is enabled, and nothing else.
+ * In particular, no event is allocated.
+ */
+public class NodeEvent {
+    private static final NodeEvent DISABLED = new NodeEvent(null);
+
+    private static final EventType LOCKFILE_PARSE = EventType.getEventType(LockfileParse.class);
+    private static final EventType ADVISORY_LOAD = EventType.getEventType(AdvisoryLoad.class);
+    private static final EventType VULNERABILITY_SCAN = EventType.getEventType(VulnerabilityScan.class);
+    private static final EventType VULNERABILITY_REPORT = EventType.getEventType(VulnerabilityReport.class);
+    private static final EventType DEPENDENCY_UPGRADE = EventType.getEventType(DependencyUpgrade.class);
+
+    private final @Nullable PhaseEvent event;
+
+    private NodeEvent(@Nullable PhaseEvent event) {
+        this.event = event;
+    }
+
+    public static NodeEvent lockfileParse() {
+        return begin(LOCKFILE_PARSE, LockfileParse::new);
+    }
+
+    public static NodeEvent advisoryLoad() {
+        return begin(ADVISORY_LOAD, AdvisoryLoad::new);
+    }
+
+    public static NodeEvent vulnerabilityScan() {
+        return begin(VULNERABILITY_SCAN, VulnerabilityScan::new);
+    }
+
+    public static NodeEvent vulnerabilityReport() {
+        return begin(VULNERABILITY_REPORT, VulnerabilityReport::new);
+    }
+
+    public static NodeEvent dependencyUpgrade() {
+        return begin(DEPENDENCY_UPGRADE, DependencyUpgrade::new);
+    }
+
+    private static NodeEvent begin(EventType type, Supplier<PhaseEvent> newEvent) {
+        if (!type.isEnabled()) {
+            return DISABLED;
+        }
+        PhaseEvent event = newEvent.get();
+        event.begin();
+        return new NodeEvent(event);
+    }
+
+    /**
+     * Ends the event and records it, unless recording is disabled or the event is below the configured threshold.
+     *
+     * @param sourcePath   The source file the phase worked on, if any.
+     * @param packageCount The number of packages resolved, matched or upgraded.
+     */
+    public void end(@Nullable Path sourcePath, long packageCount) {
+        PhaseEvent e = event;
+        if (e == null) {
+            return;
+        }
+        e.end();
+        if (e.shouldCommit()) {
+            e.sourcePath = sourcePath == null ? null : sourcePath.toString();
+            e.packageCount = packageCount;
+            e.commit();
+        }
+    }
+
+    @Category({"OpenRewrite", "Node.js"})
+    @StackTrace(false)
+    abstract static class PhaseEvent extends Event {
+        @Label("Source Path")
+        @Nullable
+        String sourcePath;
+
+        @Label("Package Count")
+        long packageCount;
+    }
+
+    @Name("org.openrewrite.nodejs.LockfileParse")
+    @Label("Lockfile Parse")
+    @Description("Resolving the packages and requirements of a package-lock.json or yarn.lock.")
+    static class LockfileParse extends PhaseEvent {
+    }
+
+    @Name("org.openrewrite.nodejs.AdvisoryLoad")
+    @Label("Advisory Load")
+    @Description("Loading the advisory database. The package count is the number of packages with advisories.")
+    static class AdvisoryLoad extends PhaseEvent {
+    }
+
+    @Name("org.openrewrite.nodejs.VulnerabilityScan")
+    @Label("Vulnerability Scan")
+    @Description("Matching the packages of a package-lock.json or yarn.lock against the advisory database. " +
+                 "The source path is the package-lock.json, or the package.json of a project resolved with a yarn.lock " +
+                 "or with the lockfile of its workspaces. " +
+                 "The package count is the number of vulnerable packages.")
+    static class VulnerabilityScan extends PhaseEvent {
+    }
+
+    @Name("org.openrewrite.nodejs.VulnerabilityReport")
+    @Label("Vulnerability Report")
+    @Description("Reporting the vulnerabilities found in all lockfiles. The package count is the number of vulnerable packages.")
+    static class VulnerabilityReport extends PhaseEvent {
+    }
+
+    @Name("org.openrewrite.nodejs.DependencyUpgrade")
+    @Label("Dependency Upgrade")
+    @Description("Upgrading the dependencies of a package.json. The package count is the number of dependencies upgraded.")
+    static class DependencyUpgrade extends PhaseEvent {
+    }
+}
@@ -17,12 +17,24 @@ package org.openrewrite.nodejs;
 
 import org.junit.jupiter.api.Test;
 import org.openrewrite.DocumentExample;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.TreeVisitor;
+import org.openrewrite.json.JsonParser;
+import org.openrewrite.json.tree.Json;
+import org.openrewrite.nodejs.search.DependencyInsight;
 import org.openrewrite.nodejs.table.VulnerabilityReport;
 import org.openrewrite.test.RecipeSpec;
 import org.openrewrite.test.RewriteTest;
 
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.openrewrite.json.Assertions.json;
+import static org.openrewrite.test.SourceSpecs.text;
 
 class DependencyVulnerabilityCheckTest implements RewriteTest {
 
@@ -103,6 +115,180 @@ class DependencyVulnerabilityCheckTest implements RewriteTest {
         );
     }
 
+    @Test
+    void shouldUpgradePatchVersionResolvedByYarnLock() {
+        rewriteRun(
+          spec -> spec.dataTable(VulnerabilityReport.Row.class, rows ->
+            assertThat(rows).anySatisfy(row -> {
+                assertThat(row.getCve()).isEqualTo("CVE-2010-2273");
+                assertThat(row.getVersion()).isEqualTo("1.10.5");
+            })),
+          json(
+            //language=json
+            """
+              {
+                "name": "example",
+                "version": "1.0.0",
+                "dependencies": {
+                  "dojo": "^1.10.0"
+                }
+              }
+              """,
+            //language=json
+            """
+              {
+                "name": "example",
+                "version": "1.0.0",
+                "dependencies": {
+                  "dojo": "^1.10.10"
+                }
+              }
+              """,
+            spec -> spec.path("package.json")
+          ),
+          text(
+            """
+              # yarn lockfile v1
+
+
+              dojo@^1.10.0:
+                version "1.10.5"
+                resolved "https://something"
+              """,
+            spec -> spec.path("yarn.lock")
+          )
+        );
+    }
+
+    @Test
+    void packageLockTakesPrecedenceOverYarnLockScannedFirst() {
+        rewriteRun(
+          json(
+            //language=json
+            """
+              {
+                "name": "example",
+                "version": "1.0.0",
+                "dependencies": {
+                  "dojo": "^1.10.0"
+                }
+              }
+              """,
+            spec -> spec.path("package.json")
+          ),
+          text(
+            """
+              # yarn lockfile v1
+
+
+              dojo@^1.10.0:
+                version "1.10.5"
+                resolved "https://something"
+              """,
+            spec -> spec.path("yarn.lock")
+          ),
+          json(
+            //language=json
+            """
+              {
+                "name": "example",
+                "version": "1.0.0",
+                "lockfileVersion": 3,
+                "requires": true,
+                "packages": {
+                  "": {
+                    "name": "example",
+                    "version": "1.0.0"
+                  }
+                }
+              }
+              """,
+            spec -> spec.path("package-lock.json")
+          )
+        );
+    }
+
+    @Test
+    void shouldUpgradeWorkspaceMemberResolvedByRootPackageLock() {
+        rewriteRun(
+          spec -> spec.dataTable(VulnerabilityReport.Row.class, rows ->
+            assertThat(rows).anySatisfy(row -> {
+                assertThat(row.getCve()).isEqualTo("CVE-2010-2273");
+                assertThat(row.getVersion()).isEqualTo("1.10.5");
+            })),
+          json(
+            //language=json
+            """
+              {
+                "name": "root",
+                "version": "1.0.0",
+                "workspaces": [
+                  "packages/*"
+                ]
+              }
+              """,
+            spec -> spec.path("package.json")
+          ),
+          json(
+            //language=json
+            """
+              {
+                "name": "a",
+                "version": "1.0.0",
+                "dependencies": {
+                  "dojo": "^1.10.0"
+                }
+              }
+              """,
+            //language=json
+            """
+              {
+                "name": "a",
+                "version": "1.0.0",
+                "dependencies": {
+                  "dojo": "^1.10.10"
+                }
+              }
+              """,
+            spec -> spec.path("packages/a/package.json")
+          ),
+          json(
+            //language=json
+            """
+              {
+                "name": "root",
+                "version": "1.0.0",
+                "lockfileVersion": 3,
+                "requires": true,
+                "packages": {
+                  "": {
+                    "name": "root",
+                    "version": "1.0.0",
+                    "workspaces": [
+                      "packages/*"
+                    ]
+                  },
+                  "node_modules/a": {
+                    "resolved": "packages/a",
+                    "link": true
+                  },
+                  "node_modules/dojo": {
+                    "version": "1.10.5"
+                  },
+                  "packages/a": {
+                    "version": "1.0.0",
+                    "dependencies": {
+                      "dojo": "^1.10.0"
+                    }
+                  }
+                }
+              }
+              """,
+            spec -> spec.path("package-lock.json")
+          )
+        );
+    }
+
     @Test
     void shouldAddMarkersIfConfigured() {
         rewriteRun(
@@ -169,7 +355,8 @@ class DependencyVulnerabilityCheckTest implements RewriteTest {
     void shouldUpgradeWithinSamePatchVersionRange() {
         rewriteRun(
           spec -> spec.dataTable(VulnerabilityReport.Row.class, rows -> assertThat(rows)
-            .hasSize(3)
+            // CVE-2010-2273 only affects 1.10.0 and later
+            .hasSize(2)
             .extracting(VulnerabilityReport.Row::getCve)
             .anySatisfy(cve -> assertThat(cve).isEqualTo("CVE-2015-5654"))),
           json(
@@ -227,6 +414,188 @@ class DependencyVulnerabilityCheckTest implements RewriteTest {
         );
     }
 
+    @Test
+    void shouldUpgradeToGreatestPatchFix() {
+        rewriteRun(
+          json(
+            //language=json
+            """
+              {
+                "name": "example",
+                "version": "1.0.0",
+                "dependencies": {
+                  "dojo": "^1.13.0"
+                }
+              }
+              """,
+            //language=json
+            """
+              {
+                "name": "example",
+                "version": "1.0.0",
+                "dependencies": {
+                  "dojo": "^1.13.7"
+                }
+              }
+              """,
+            spec -> spec.path("package.json")
+          ),
+          json(
+            //language=json
+            """
+              {
+                "name": "example",
+                "version": "1.0.0",
+                "lockfileVersion": 3,
+                "requires": true,
+                "packages": {
+                  "": {
+                    "name": "example",
+                    "version": "1.0.0",
+                    "dependencies": {
+                      "dojo": "^1.13.0"
+                    }
+                  },
+                  "node_modules/dojo": {
+                    "version": "1.13.0"
+                  }
+                }
+              }
+              """,
+            spec -> spec.path("package-lock.json")
+          )
+        );
+    }
+
+    @Test
+    void shouldOnlyUpgradeProjectOfLockfile() {
+        rewriteRun(
+          json(
+            //language=json
+            """
+              {
+                "name": "a",
+                "version": "1.0.0",
+                "dependencies": {
+                  "dojo": "^1.10.0"
+                }
+              }
+              """,
+            //language=json
+            """
+              {
+                "name": "a",
+                "version": "1.0.0",
+                "dependencies": {
+                  "dojo": "^1.10.10"
+                }
+              }
+              """,
+            spec -> spec.path("a/package.json")
+          ),
+          json(
+            lockfile("a", "1.10.5"),
+            spec -> spec.path("a/package-lock.json")
+          ),
+          json(
+            //language=json
+            """
+              {
+                "name": "b",
+                "version": "1.0.0",
+                "dependencies": {
+                  "dojo": "^1.9.1"
+                }
+              }
+              """,
+            spec -> spec.path("b/package.json")
+          ),
+          json(
+            lockfile("b", "1.9.1"),
+            spec -> spec.path("b/package-lock.json")
+          )
+        );
+    }
+
+    @Test
+    void shouldReportTransitiveVulnerabilitiesAtDepth() {
+        rewriteRun(
+          spec -> spec.dataTable(VulnerabilityReport.Row.class, rows -> assertThat(rows)
+            .hasSize(2)
+            .allSatisfy(row -> {
+                assertThat(row.getPackageName()).isEqualTo("dojo");
+                assertThat(row.getDepth()).isEqualTo(1);
+            })),
+          json(
+            //language=json
+            """
+              {
+                "name": "example",
+                "version": "1.0.0",
+                "dependencies": {
+                  "widgets": "^1.0.0"
+                }
+              }
+              """,
+            spec -> spec.path("package.json")
+          ),
+          json(
+            //language=json
+            """
+              {
+                "name": "example",
+                "version": "1.0.0",
+                "lockfileVersion": 3,
+                "requires": true,
+                "packages": {
+                  "": {
+                    "name": "example",
+                    "version": "1.0.0",
+                    "dependencies": {
+                      "widgets": "^1.0.0"
+                    }
+                  },
+                  "node_modules/widgets": {
+                    "version": "1.0.0",
+                    "dependencies": {
+                      "dojo": "^1.10.0"
+                    }
+                  },
+                  "node_modules/widgets/node_modules/dojo": {
+                    "version": "1.10.5"
+                  }
+                }
+              }
+              """,
+            spec -> spec.path("package-lock.json")
+          )
+        );
+    }
+
+    @Test
+    void shouldNotDowngradeRequestedRange() {
+        rewriteRun(
+          json(
+            //language=json
+            """
+              {
+                "name": "example",
+                "version": "1.0.0",
+                "dependencies": {
+                  "dojo": "^1.10.12"
+                }
+              }
+              """,
+            spec -> spec.path("package.json")
+          ),
+          json(
+            // the lockfile has not been updated since the requested range was raised
+            lockfile("example", "1.10.5"),
+            spec -> spec.path("package-lock.json")
+          )
+        );
+    }
+
     @Test
     void shouldNotUpgradeMinorVersion() {
         rewriteRun(
@@ -342,4 +711,82 @@ class DependencyVulnerabilityCheckTest implements RewriteTest {
           )
         );
     }
+
+    @Test
+    void concurrentScansLoseNothing() throws Exception {
+        DependencyVulnerabilityCheck recipe = new DependencyVulnerabilityCheck(null);
+        DependencyInsight insight = new DependencyInsight("dojo", null, null);
+        String[] versions = {"1.9.0", "1.10.5", "1.13.0"};
+        List<Json.Document> lockfiles = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            lockfiles.add(parse(lockfile("example", versions[i % versions.length])).withSourcePath(Paths.get("p" + i, "package-lock.json")));
+        }
+
+        ExecutionContext sequentialCtx = new InMemoryExecutionContext();
+        DependencyVulnerabilityCheck.Accumulator expected = recipe.getInitialValue(sequentialCtx);
+        TreeVisitor<?, ExecutionContext> sequential = recipe.getScanner(expected);
+        for (Json.Document lockfile : lockfiles) {
+            sequential.visit(lockfile, sequentialCtx);
+        }
+        assertThat(expected.getProjects()).hasSize(lockfiles.size());
+
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        DependencyVulnerabilityCheck.Accumulator acc = recipe.getInitialValue(ctx);
+        LockfileResolutions resolutions = insight.getInitialValue(ctx);
+        NodeResolutionCache cache = NodeResolutionCache.getInstance(ctx);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> scans = new ArrayList<>();
+            for (Json.Document lockfile : lockfiles) {
+                scans.add(executor.submit(() -> {
+                    start.await();
+                    recipe.getScanner(acc).visit(lockfile, ctx);
+                    insight.getScanner(resolutions).visit(lockfile, ctx);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> scan : scans) {
+                scan.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(acc.getProjects()).isEqualTo(expected.getProjects());
+        assertThat(resolutions.size()).isEqualTo(lockfiles.size());
+        // each lockfile is resolved exactly once, and the second recipe to scan it reuses the resolution
+        assertThat(NodeResolutionCache.getInstance(ctx)).isSameAs(cache);
+        assertThat(cache.getMissCount()).isEqualTo(lockfiles.size());
+        assertThat(cache.getHitCount()).isEqualTo(lockfiles.size());
+    }
+
+    private static String lockfile(String name, String dojoVersion) {
+        //language=json
+        return """
+          {
+            "name": "%s",
+            "version": "1.0.0",
+            "lockfileVersion": 3,
+            "requires": true,
+            "packages": {
+              "": {
+                "name": "%s",
+                "version": "1.0.0",
+                "dependencies": {
+                  "dojo": "^%s"
+                }
+              },
+              "node_modules/dojo": {
+                "version": "%s"
+              }
+            }
+          }
+          """.formatted(name, name, dojoVersion, dojoVersion);
+    }
+
+    private static Json.Document parse(String json) {
+        return (Json.Document) JsonParser.builder().build().parse(json).findFirst().orElseThrow();
+    }
 }
@@ -0,0 +1,359 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.Value;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Generates realistic package.json and package-lock.json files of any size for scale tests and benchmarks.
+ * The same seed and settings always generate the same files.
+ * <p>
+ * Every installed package is reachable from the project and every requirement resolves. Packages are
+ * hoisted to the top-level {@code node_modules} unless another version of the same name is already there,
+ * in which case they are nested inside the {@code node_modules} of a package requiring them, as npm does.
+ * Vulnerable packages are real name and version pairs taken from the advisory database.
+ */
+public class LockfileGenerator {
+    private static final Pattern PLAIN_VERSION = Pattern.compile("\\d+\\.\\d+\\.\\d+");
+
+    private static @Nullable List<String[]> vulnerableVersions;
+
+    private final Random random;
+
+    private int packages = 1000;
+    private int directDependencies = 30;
+    private int dependenciesPerPackage = 3;
+    private int nestingDepth = 3;
+    private double duplicateVersions = 0.05;
+    private double scopedNames = 0.2;
+    private double vulnerable = 0.01;
+
+    public LockfileGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * @param packages The number of installed packages of each project.
+     */
+    public LockfileGenerator packages(int packages) {
+        this.packages = packages;
+        return this;
+    }
+
+    public LockfileGenerator directDependencies(int directDependencies) {
+        this.directDependencies = directDependencies;
+        return this;
+    }
+
+    /**
+     * @param dependenciesPerPackage The average number of requirements of an installed package.
+     */
+    public LockfileGenerator dependenciesPerPackage(int dependenciesPerPackage) {
+        this.dependenciesPerPackage = dependenciesPerPackage;
+        return this;
+    }
+
+    /**
+     * @param nestingDepth The most {@code node_modules} directories a package may be nested in, at least one.
+     */
+    public LockfileGenerator nestingDepth(int nestingDepth) {
+        this.nestingDepth = nestingDepth;
+        return this;
+    }
+
+    /**
+     * @param duplicateVersions The fraction of packages that are another version of an already installed package.
+     */
+    public LockfileGenerator duplicateVersions(double duplicateVersions) {
+        this.duplicateVersions = duplicateVersions;
+        return this;
+    }
+
+    public LockfileGenerator scopedNames(double scopedNames) {
+        this.scopedNames = scopedNames;
+        return this;
+    }
+
+    /**
+     * @param vulnerable The fraction of packages installed in a version affected by a known advisory.
+     */
+    public LockfileGenerator vulnerable(double vulnerable) {
+        this.vulnerable = vulnerable;
+        return this;
+    }
+
+    public Project generate(String name) {
+        List<Installed> installed = new ArrayList<>(packages);
+        Map<String, Installed> hoisted = new HashMap<>();
+        List<Installed> hoistedInOrder = new ArrayList<>();
+
+        // candidates that are already installed in the same version are dropped, so allow for a few more attempts
+        for (int i = 0; installed.size() < packages && i < packages * 2; i++) {
+            String packageName;
+            String version;
+            if (random.nextDouble() < vulnerable) {
+                String[] nameVersion = vulnerableVersions().get(random.nextInt(vulnerableVersions().size()));
+                packageName = nameVersion[0];
+                version = nameVersion[1];
+            } else if (!hoistedInOrder.isEmpty() && random.nextDouble() < duplicateVersions) {
+                packageName = hoistedInOrder.get(random.nextInt(hoistedInOrder.size())).name;
+                version = randomVersion();
+            } else {
+                packageName = random.nextDouble() < scopedNames ?
+                        "@scope-" + random.nextInt(50) + "/pkg-" + i :
+                        "pkg-" + i;
+                version = randomVersion();
+            }
+
+            Installed existing = hoisted.get(packageName);
+            if (existing == null) {
+                Installed p = new Installed("node_modules/" + packageName, packageName, version, null, 1);
+                hoisted.put(packageName, p);
+                hoistedInOrder.add(p);
+                installed.add(p);
+            } else if (!existing.version.equals(version)) {
+                Installed parent = nestingParent(installed, packageName);
+                if (parent != null && !parent.hasNested(packageName)) {
+                    Installed p = new Installed(parent.path + "/node_modules/" + packageName, packageName, version,
+                            parent, parent.depth + 1);
+                    parent.require(packageName, version);
+                    parent.nested.add(packageName);
+                    installed.add(p);
+                }
+            }
+        }
+
+        // every hoisted package is required by the project or by a package hoisted before it,
+        // so that all of them are reachable
+        Map<String, String> direct = new TreeMap<>();
+        for (int i = 0; i < hoistedInOrder.size(); i++) {
+            Installed p = hoistedInOrder.get(i);
+            if (i < directDependencies) {
+                direct.put(p.name, "^" + p.version);
+            } else {
+                Installed requiredBy = hoistedInOrder.get(random.nextInt(i));
+                if (requiredBy.hasNested(p.name)) {
+                    direct.put(p.name, "^" + p.version);
+                } else {
+                    requiredBy.require(p.name, p.version);
+                }
+            }
+        }
+        for (Installed p : installed) {
+            for (int r = random.nextInt(Math.max(1, dependenciesPerPackage * 2 - 1)); r > 0; r--) {
+                Installed required = hoistedInOrder.get(random.nextInt(hoistedInOrder.size()));
+                if (!required.name.equals(p.name) && !p.hasNested(required.name) && !p.requires(required.name) &&
+                    resolvesToHoisted(p, required.name)) {
+                    p.require(required.name, required.version);
+                }
+            }
+        }
+
+        return new Project(packageJson(name, direct), packageLockJson(name, direct, installed));
+    }
+
+    /**
+     * Generates independent projects, each with a package.json and lockfile of its own, as in a monorepo.
+     *
+     * @return The contents of every file, by path, in a deterministic order.
+     */
+    public Map<Path, String> generateRepository(int projects) {
+        Map<Path, String> files = new LinkedHashMap<>();
+        for (int i = 0; i < projects; i++) {
+            Project project = generate("project-" + i);
+            Path directory = Paths.get("packages", "project-" + i);
+            files.put(directory.resolve("package.json"), project.getPackageJson());
+            files.put(directory.resolve("package-lock.json"), project.getPackageLockJson());
+        }
+        return files;
+    }
+
+    private @Nullable Installed nestingParent(List<Installed> installed, String name) {
+        for (int attempt = 0; attempt < 8; attempt++) {
+            Installed parent = installed.get(random.nextInt(installed.size()));
+            if (parent.depth < nestingDepth && !parent.name.equals(name)) {
+                return parent;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Whether a requirement of a package would be satisfied by the hoisted package of that name,
+     * rather than by a version nested in one of the package's enclosing {@code node_modules}.
+     */
+    private static boolean resolvesToHoisted(Installed p, String name) {
+        for (Installed enclosing = p.parent; enclosing != null; enclosing = enclosing.parent) {
+            if (enclosing.hasNested(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String randomVersion() {
+        return random.nextInt(10) + "." + random.nextInt(30) + "." + random.nextInt(40);
+    }
+
+    private static String packageJson(String name, Map<String, String> direct) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"name\": \"").append(name).append("\",\n  \"version\": \"1.0.0\",\n");
+        appendRequirements(json, "  ", direct);
+        return json.append("\n}\n").toString();
+    }
+
+    private static String packageLockJson(String name, Map<String, String> direct, List<Installed> installed) {
+        StringBuilder json = new StringBuilder(installed.size() * 400);
+        json.append("{\n  \"name\": \"").append(name).append("\",\n  \"version\": \"1.0.0\",\n")
+                .append("  \"lockfileVersion\": 3,\n  \"requires\": true,\n  \"packages\": {\n")
+                .append("    \"\": {\n      \"name\": \"").append(name).append("\",\n      \"version\": \"1.0.0\",\n");
+        appendRequirements(json, "      ", direct);
+        json.append("\n    }");
+
+        // npm orders the entries by path
+        List<Installed> sorted = new ArrayList<>(installed);
+        sorted.sort(Comparator.comparing(p -> p.path));
+        for (Installed p : sorted) {
+            String baseName = p.name.substring(p.name.lastIndexOf('/') + 1);
+            json.append(",\n    \"").append(p.path).append("\": {\n")
+                    .append("      \"version\": \"").append(p.version).append("\",\n")
+                    .append("      \"resolved\": \"https://registry.npmjs.org/").append(p.name).append("/-/")
+                    .append(baseName).append('-').append(p.version).append(".tgz\",\n")
+                    .append("      \"integrity\": \"sha512-").append(integrity(p)).append("\",\n")
+                    .append("      \"license\": \"MIT\"");
+            if (!p.requirements.isEmpty()) {
+                json.append(",\n");
+                appendRequirements(json, "      ", p.requirements);
+            }
+            json.append("\n    }");
+        }
+        return json.append("\n  }\n}\n").toString();
+    }
+
+    private static void appendRequirements(StringBuilder json, String indent, Map<String, String> requirements) {
+        json.append(indent).append("\"dependencies\": {");
+        boolean first = true;
+        for (Map.Entry<String, String> requirement : requirements.entrySet()) {
+            json.append(first ? "\n" : ",\n").append(indent).append("  \"").append(requirement.getKey())
+                    .append("\": \"").append(requirement.getValue()).append('"');
+            first = false;
+        }
+        json.append('\n').append(indent).append('}');
+    }
+
+    private static String integrity(Installed p) {
+        byte[] hash = new byte[64];
+        new Random((p.path + '@' + p.version).hashCode()).nextBytes(hash);
+        return Base64.getEncoder().encodeToString(hash);
+    }
+
+    private static synchronized List<String[]> vulnerableVersions() {
+        List<String[]> versions = vulnerableVersions;
+        if (versions == null) {
+            CsvMapper csvMapper = new CsvMapper();
+            csvMapper.registerModule(new JavaTimeModule());
+            versions = new ArrayList<>();
+            try (InputStream csv = LockfileGenerator.class.getResourceAsStream("/advisories-npm.csv");
+                 MappingIterator<Vulnerability> vs = csvMapper.readerWithSchemaFor(Vulnerability.class).readValues(csv)) {
+                while (vs.hasNextValue()) {
+                    Vulnerability v = vs.nextValue();
+                    String affected = affectedVersion(v);
+                    if (affected != null) {
+                        versions.add(new String[]{v.getPackageName(), affected});
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            vulnerableVersions = versions;
+        }
+        return versions;
+    }
+
+    /**
+     * @return The first version affected by an advisory, or failing that the last one before its fix.
+     */
+    private static @Nullable String affectedVersion(Vulnerability v) {
+        String introduced = v.getIntroducedVersion();
+        if (PLAIN_VERSION.matcher(introduced).matches()) {
+            return introduced;
+        }
+        String fixed = v.getFixedVersion();
+        if (fixed == null || !PLAIN_VERSION.matcher(fixed).matches()) {
+            return null;
+        }
+        String[] parts = fixed.split("\\.");
+        int major = Integer.parseInt(parts[0]);
+        int minor = Integer.parseInt(parts[1]);
+        int patch = Integer.parseInt(parts[2]);
+        if (patch > 0) {
+            return major + "." + minor + "." + (patch - 1);
+        } else if (minor > 0) {
+            return major + "." + (minor - 1) + ".0";
+        } else if (major > 0) {
+            return (major - 1) + ".0.0";
+        }
+        return null;
+    }
+
+    @Value
+    public static class Project {
+        String packageJson;
+        String packageLockJson;
+    }
+
+    private static class Installed {
+        final String path;
+        final String name;
+        final String version;
+        final @Nullable Installed parent;
+        final int depth;
+        final Map<String, String> requirements = new TreeMap<>();
+        final Set<String> nested = new HashSet<>();
+
+        Installed(String path, String name, String version, @Nullable Installed parent, int depth) {
+            this.path = path;
+            this.name = name;
+            this.version = version;
+            this.parent = parent;
+            this.depth = depth;
+        }
+
+        void require(String name, String version) {
+            requirements.put(name, "^" + version);
+        }
+
+        boolean requires(String name) {
+            return requirements.containsKey(name);
+        }
+
+        boolean hasNested(String name) {
+            return nested.contains(name);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs;
+
+import org.junit.jupiter.api.Test;
+import org.openrewrite.nodejs.internal.AdvisoryDatabase;
+import org.openrewrite.nodejs.internal.AdvisoryIndex;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LockfileGeneratorTest {
+
+    @Test
+    void sameSeedGeneratesSameLockfile() {
+        assertThat(new LockfileGenerator(1).generate("example"))
+          .isEqualTo(new LockfileGenerator(1).generate("example"))
+          .isNotEqualTo(new LockfileGenerator(2).generate("example"));
+    }
+
+    @Test
+    void everyPackageIsReachableAndResolved() {
+        NodeResolutionResult resolution = resolve(new LockfileGenerator(1)
+          .packages(2000)
+          .duplicateVersions(0.2)
+          .nestingDepth(3)
+          .generate("example"));
+
+        DependencyGraph graph = resolution.getGraph();
+        assertThat(graph.getNodeCount() - 1).isEqualTo(2000);
+        for (int node = 1; node < graph.getNodeCount(); node++) {
+            assertThat(graph.getResolved(node).getDependencies())
+              .allSatisfy(d -> assertThat(d.getResolved()).isNotNull());
+        }
+        assertThat(graph.getNameCount())
+          .as("duplicate versions are nested")
+          .isLessThan(2000);
+        assertThat(resolution.getResolvedNames())
+          .anySatisfy(name -> assertThat(name).startsWith("@scope-"));
+    }
+
+    @Test
+    void vulnerablePackagesMatchAdvisories() {
+        NodeResolutionResult resolution = resolve(new LockfileGenerator(1)
+          .packages(1000)
+          .vulnerable(0.05)
+          .generate("example"));
+
+        AdvisoryIndex advisories = AdvisoryDatabase.get();
+        DependencyGraph graph = resolution.getGraph();
+        int vulnerable = 0;
+        for (int node = 1; node < graph.getNodeCount(); node++) {
+            if (!advisories.getAdvisories(graph.getName(node), graph.getVersion(node)).isEmpty()) {
+                vulnerable++;
+            }
+        }
+        assertThat(vulnerable).isBetween(20, 80);
+    }
+
+    @Test
+    void repositoryHasLockfilePerProject() {
+        Map<Path, String> files = new LockfileGenerator(1)
+          .packages(50)
+          .generateRepository(3);
+
+        assertThat(files.keySet()).containsExactly(
+          Paths.get("packages/project-0/package.json"),
+          Paths.get("packages/project-0/package-lock.json"),
+          Paths.get("packages/project-1/package.json"),
+          Paths.get("packages/project-1/package-lock.json"),
+          Paths.get("packages/project-2/package.json"),
+          Paths.get("packages/project-2/package-lock.json")
+        );
+    }
+
+    private static NodeResolutionResult resolve(LockfileGenerator.Project project) {
+        return NodeResolutionResult.fromPackageLockJson(new ByteArrayInputStream(
+          project.getPackageLockJson().getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.json.JsonParser;
+import org.openrewrite.json.tree.Json;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NodeEventTest {
+
+    @Test
+    void recordsLockfileParseAndDependencyUpgrade(@TempDir Path tempDir) throws Exception {
+        Json.Document lockfile = parse(
+          //language=json
+          """
+            {
+              "name": "example",
+              "lockfileVersion": 3,
+              "packages": {
+                "": {
+                  "dependencies": {
+                    "a": "^1.0.0"
+                  }
+                },
+                "node_modules/a": {
+                  "version": "1.0.0",
+                  "dependencies": {
+                    "b": "^1.0.0"
+                  }
+                },
+                "node_modules/b": {
+                  "version": "1.1.0"
+                }
+              }
+            }
+            """
+        ).withSourcePath(Paths.get("project/package-lock.json"));
+        Json.Document packageJson = parse(
+          //language=json
+          """
+            {
+              "name": "example",
+              "dependencies": {
+                "a": "^1.0.0",
+                "b": "^1.0.0"
+              }
+            }
+            """
+        ).withSourcePath(Paths.get("project/package.json"));
+
+        Path recordingFile = tempDir.resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("org.openrewrite.nodejs.LockfileParse");
+            recording.enable("org.openrewrite.nodejs.DependencyUpgrade");
+            recording.start();
+            NodeResolutionResult.fromPackageLockJson(lockfile);
+            new UpgradeDependencyVersion("*", "^2.0.0").getVisitor().visit(packageJson, new InMemoryExecutionContext());
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        assertThat(events)
+          .filteredOn(e -> e.getEventType().getName().equals("org.openrewrite.nodejs.LockfileParse"))
+          .singleElement()
+          .satisfies(e -> {
+              assertThat(e.getString("sourcePath")).isEqualTo(Paths.get("project/package-lock.json").toString());
+              assertThat(e.getLong("packageCount")).isEqualTo(2);
+          });
+        assertThat(events)
+          .filteredOn(e -> e.getEventType().getName().equals("org.openrewrite.nodejs.DependencyUpgrade"))
+          .singleElement()
+          .satisfies(e -> {
+              assertThat(e.getString("sourcePath")).isEqualTo(Paths.get("project/package.json").toString());
+              assertThat(e.getLong("packageCount")).isEqualTo(2);
+          });
+    }
+
+    private static Json.Document parse(String json) {
+        return (Json.Document) JsonParser.builder().build().parse(json).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.nodejs.internal.NodeMetrics;
+import org.openrewrite.test.RewriteTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.openrewrite.json.Assertions.json;
+import static org.openrewrite.nodejs.internal.NodeMetrics.*;
+
+class NodeMetricsTest implements RewriteTest {
+
+    @Test
+    void recordsEachPhase() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        NodeMetricsExecutionContextView.view(ctx).setMeterRegistry(registry);
+        String recipe = new DependencyVulnerabilityCheck(null).getName();
+
+        rewriteRun(
+          spec -> spec
+            .recipe(new DependencyVulnerabilityCheck(null))
+            .executionContext(ctx),
+          json(
+            //language=json
+            """
+              {
+                "name": "example",
+                "version": "1.0.0",
+                "dependencies": {
+                  "dojo": "^1.10.0"
+                }
+              }
+              """,
+            //language=json
+            """
+              {
+                "name": "example",
+                "version": "1.0.0",
+                "dependencies": {
+                  "dojo": "^1.10.10"
+                }
+              }
+              """,
+            spec -> spec.path("package.json")
+          ),
+          json(
+            //language=json
+            """
+              {
+                "name": "example",
+                "version": "1.0.0",
+                "lockfileVersion": 3,
+                "requires": true,
+                "packages": {
+                  "": {
+                    "name": "example",
+                    "version": "1.0.0",
+                    "dependencies": {
+                      "dojo": "^1.10.0"
+                    }
+                  },
+                  "node_modules/dojo": {
+                    "version": "1.10.5"
+                  }
+                }
+              }
+              """,
+            spec -> spec.path("package-lock.json")
+          )
+        );
+
+        assertThat(registry.get(ADVISORIES_LOAD).tag("recipe", recipe).timer().count()).isPositive();
+        assertThat(registry.get(LOCKFILE_RESOLVE).timer().count()).isPositive();
+        assertThat(registry.get(PACKAGES_RESOLVED).counter().count()).isPositive();
+        assertThat(registry.get(SCAN).tag("recipe", recipe).timer().count()).isPositive();
+        assertThat(registry.get(ADVISORIES_MATCHED).tag("recipe", recipe).counter().count()).isGreaterThanOrEqualTo(2);
+        assertThat(registry.get(GENERATE).tag("recipe", recipe).timer().count()).isPositive();
+        assertThat(registry.get(EDIT).tag("recipe", recipe).timer().count()).isPositive();
+        assertThat(registry.get(UPGRADES).tag("recipe", recipe).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void sharesOneInstanceWithoutRegistry() {
+        NodeMetrics metrics = NodeMetrics.of(new InMemoryExecutionContext());
+        assertThat(NodeMetrics.of(new InMemoryExecutionContext())).isSameAs(metrics);
+        assertThat(metrics.start()).isNull();
+    }
+}
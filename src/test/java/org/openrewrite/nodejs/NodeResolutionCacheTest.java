@@ -0,0 +1,136 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs;
+
+import org.junit.jupiter.api.Test;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.json.JsonParser;
+import org.openrewrite.json.tree.Json;
+import org.openrewrite.nodejs.search.DependencyInsight;
+import org.openrewrite.test.RewriteTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.openrewrite.json.Assertions.json;
+
+class NodeResolutionCacheTest implements RewriteTest {
+
+    @Test
+    void lockfileIsResolvedOncePerRun() {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        rewriteRun(
+          spec -> spec
+            .recipes(
+              new DependencyInsight("does-not-exist", null, false),
+              new DependencyVulnerabilityCheck(null)
+            )
+            .executionContext(ctx),
+          json(
+            //language=json
+            """
+              {
+                "name": "example",
+                "version": "1.0.0",
+                "dependencies": {
+                  "jwt-decode": "^4.0.0"
+                }
+              }
+              """,
+            spec -> spec.path("package.json")
+          ),
+          json(
+            //language=json
+            """
+              {
+                "name": "example",
+                "version": "1.0.0",
+                "lockfileVersion": 3,
+                "requires": true,
+                "packages": {
+                  "": {
+                    "name": "example",
+                    "version": "1.0.0",
+                    "dependencies": {
+                      "jwt-decode": "^4.0.0"
+                    }
+                  },
+                  "node_modules/jwt-decode": {
+                    "version": "4.0.0"
+                  }
+                }
+              }
+              """,
+            spec -> spec.path("package-lock.json")
+          )
+        );
+
+        NodeResolutionCache cache = NodeResolutionCache.getInstance(ctx);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isPositive();
+        assertThat(cache.getHitRate()).isGreaterThanOrEqualTo(0.5);
+    }
+
+    @Test
+    void concurrentScannersResolveLockfileOnce() throws Exception {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        Json.Document lockfile = (Json.Document) JsonParser.builder().build().parse(
+          //language=json
+          """
+            {
+              "name": "example",
+              "lockfileVersion": 3,
+              "packages": {
+                "": {
+                  "dependencies": {
+                    "jwt-decode": "^4.0.0"
+                  }
+                },
+                "node_modules/jwt-decode": {
+                  "version": "4.0.0"
+                }
+              }
+            }
+            """
+        ).findFirst().orElseThrow();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<NodeResolutionResult>> resolutions = new ArrayList<>();
+        try {
+            for (int i = 0; i < 32; i++) {
+                resolutions.add(executor.submit(() -> {
+                    start.await();
+                    return NodeResolutionCache.getInstance(ctx).resolve(lockfile);
+                }));
+            }
+            start.countDown();
+            NodeResolutionResult first = resolutions.get(0).get(30, TimeUnit.SECONDS);
+            for (Future<NodeResolutionResult> resolution : resolutions) {
+                assertThat(resolution.get(30, TimeUnit.SECONDS)).isSameAs(first);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        NodeResolutionCache cache = NodeResolutionCache.getInstance(ctx);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(31);
+    }
+}
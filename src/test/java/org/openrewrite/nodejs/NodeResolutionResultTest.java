@@ -20,11 +20,24 @@ import org.openrewrite.DocumentExample;
 import org.openrewrite.ExecutionContext;
 import org.openrewrite.Preconditions;
 import org.openrewrite.json.JsonIsoVisitor;
+import org.openrewrite.json.JsonParser;
 import org.openrewrite.json.tree.Json;
 import org.openrewrite.nodejs.search.IsPackageLockJson;
 import org.openrewrite.test.RewriteTest;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.openrewrite.json.Assertions.json;
 import static org.openrewrite.test.RewriteTest.toRecipe;
 
@@ -114,4 +127,281 @@ class NodeResolutionResultTest implements RewriteTest {
           )
         );
     }
+
+    @Test
+    void streamPackageLockJson() throws IOException {
+        try (InputStream lockfile = Files.newInputStream(Paths.get("sample/package-lock.json"))) {
+            NodeResolutionResult nodeResolutionResult = NodeResolutionResult.fromPackageLockJson(lockfile);
+            assertThat(nodeResolutionResult.getDependencies())
+              .extracting(d -> d.getName() + "@" + requireNonNull(d.getResolved()).getVersion())
+              .containsExactly("jwt-decode@4.0.0", "lodash.camelcase@4.3.0", "lodash.kebabcase@4.1.1");
+            assertThat(nodeResolutionResult.getDevDependencies()).isEmpty();
+        }
+    }
+
+    @Test
+    void malformedPackageLockJsonFails() {
+        InputStream lockfile = new ByteArrayInputStream("{\"packages\": {\"\": {".getBytes(StandardCharsets.UTF_8));
+        assertThatThrownBy(() -> NodeResolutionResult.fromPackageLockJson(lockfile))
+          .isInstanceOf(UncheckedIOException.class);
+    }
+
+    @Test
+    void indexPackagesByName() throws IOException {
+        try (InputStream lockfile = Files.newInputStream(Paths.get("sample/package-lock.json"))) {
+            NodeResolutionResult nodeResolutionResult = NodeResolutionResult.fromPackageLockJson(lockfile);
+            assertThat(nodeResolutionResult.getDependency("lodash.kebabcase")).isNotNull();
+            assertThat(nodeResolutionResult.getDependency("lodash")).isNull();
+            assertThat(nodeResolutionResult.getResolved("jwt-decode"))
+              .extracting(ResolvedDependency::getVersion)
+              .containsExactly("4.0.0");
+            assertThat(nodeResolutionResult.getResolvedNames("lodash."))
+              .containsExactly("lodash.camelcase", "lodash.kebabcase");
+        }
+    }
+
+    @Test
+    void resolveNestedNodeModules() {
+        NodeResolutionResult nodeResolutionResult = nested();
+
+        ResolvedDependency a = requireNonNull(requireNonNull(nodeResolutionResult.getDependency("a")).getResolved());
+        ResolvedDependency nestedB = requireNonNull(a.getDependencies().get(0).getResolved());
+        assertThat(nestedB.getName()).isEqualTo("b");
+        assertThat(nestedB.getVersion()).isEqualTo("1.1.0");
+        // not installed next to the nested b, so found by looking in enclosing node_modules directories
+        ResolvedDependency c = requireNonNull(nestedB.getDependencies().get(0).getResolved());
+        assertThat(c.getVersion()).isEqualTo("1.0.0");
+
+        assertThat(nodeResolutionResult.getResolved("b"))
+          .extracting(ResolvedDependency::getVersion)
+          .containsExactly("2.0.0", "1.1.0");
+        assertThat(nodeResolutionResult.getResolvedNames()).containsExactly("a", "b", "c");
+        assertThat(nodeResolutionResult.getDepth(a)).isZero();
+        assertThat(nodeResolutionResult.getDepth(nestedB)).isEqualTo(1);
+        assertThat(nodeResolutionResult.getDepth(c)).isEqualTo(2);
+    }
+
+    @Test
+    void depthsOfPackagesSharedWithAnotherResolution() {
+        NodeResolutionResult nodeResolutionResult = nested();
+        ResolvedDependency a = requireNonNull(requireNonNull(nodeResolutionResult.getDependency("a")).getResolved());
+        Dependency requiresNestedB = a.getDependencies().get(0);
+        ResolvedDependency c = requireNonNull(requireNonNull(requiresNestedB.getResolved()).getDependencies().get(0).getResolved());
+
+        // numbers the nested b and c again, in a graph of their own
+        NodeResolutionResult nestedB = new NodeResolutionResult(List.of(requiresNestedB), List.of());
+        assertThat(nestedB.getDepth(c)).isEqualTo(1);
+        assertThat(nestedB.getDepth(a)).isEqualTo(-1);
+
+        assertThat(nodeResolutionResult.getDepth(c)).isEqualTo(2);
+        assertThat(nodeResolutionResult.getDepth(a)).isZero();
+    }
+
+    @Test
+    void traverseCompactGraph() {
+        DependencyGraph graph = nested().getGraph();
+        assertThat(graph.getNodeCount()).isEqualTo(5);
+        assertThat(graph.getDependencyCount(DependencyGraph.ROOT)).isEqualTo(2);
+
+        int b = graph.getNameId("b");
+        assertThat(graph.getInstallCount(b)).isEqualTo(2);
+        int nestedB = graph.getInstalled(b, 1);
+        assertThat(graph.getVersion(nestedB)).isEqualTo("1.1.0");
+
+        int c = graph.getDependency(nestedB, 0);
+        assertThat(graph.getName(c)).isEqualTo("c");
+        assertThat(graph.getDepth(c)).isEqualTo(2);
+        // back along the packages requiring c, all the way to the project
+        assertThat(graph.getDependentCount(c)).isEqualTo(1);
+        assertThat(graph.getDependent(c, 0)).isEqualTo(nestedB);
+        int a = graph.getDependent(nestedB, 0);
+        assertThat(graph.getName(a)).isEqualTo("a");
+        assertThat(graph.getDependent(a, 0)).isEqualTo(DependencyGraph.ROOT);
+    }
+
+    @Test
+    void resolveYarnLock() {
+        //language=yaml
+        String yarnLock = """
+          # THIS IS AN AUTOGENERATED FILE. DO NOT EDIT THIS FILE DIRECTLY.
+          # yarn lockfile v1
+
+
+          a@^1.0.0:
+            version "1.0.0"
+            resolved "https://registry.yarnpkg.com/a/-/a-1.0.0.tgz"
+            dependencies:
+              b "^1.0.0"
+
+          b@^1.0.0, b@^1.1.0:
+            version "1.1.0"
+            dependencies:
+              "@scope/c" "^1.0.0"
+
+          b@^2.0.0:
+            version "2.0.0"
+
+          "@scope/c@^1.0.0":
+            version "1.0.0"
+          """;
+        assertResolvesLikeNestedLockfile(NodeResolutionResult.fromYarnLock(new StringReader(yarnLock), packageJson()));
+    }
+
+    @Test
+    void resolveBerryYarnLock() {
+        //language=yaml
+        String yarnLock = """
+          # This file is generated by running "yarn install" inside your project.
+          # Manual changes might be lost - proceed with caution!
+
+          __metadata:
+            version: 6
+            cacheKey: 8
+
+          "a@npm:^1.0.0":
+            version: 1.0.0
+            resolution: "a@npm:1.0.0"
+            dependencies:
+              b: ^1.0.0
+            bin:
+              a: bin/a.js
+            languageName: node
+            linkType: hard
+
+          "b@npm:^1.0.0, b@npm:^1.1.0":
+            version: 1.1.0
+            resolution: "b@npm:1.1.0"
+            dependencies:
+              "@scope/c": ^1.0.0
+            peerDependencies:
+              d: "*"
+            languageName: node
+            linkType: hard
+
+          "b@npm:^2.0.0":
+            version: 2.0.0
+            resolution: "b@npm:2.0.0"
+            languageName: node
+            linkType: hard
+
+          "@scope/c@npm:^1.0.0":
+            version: 1.0.0
+            resolution: "@scope/c@npm:1.0.0"
+            languageName: node
+            linkType: hard
+
+          "example@workspace:.":
+            version: 0.0.0-use.local
+            resolution: "example@workspace:."
+            dependencies:
+              a: ^1.0.0
+              b: ^2.0.0
+            languageName: unknown
+            linkType: soft
+          """;
+        assertResolvesLikeNestedLockfile(NodeResolutionResult.fromYarnLock(
+          new ByteArrayInputStream(yarnLock.getBytes(StandardCharsets.UTF_8)), packageJson()));
+    }
+
+    @Test
+    void yarnLockRequirementsWithUnionRangesAreDropped() {
+        String yarnLock = """
+          # yarn lockfile v1
+
+
+          a@^1.0.0:
+            version "1.0.0"
+            dependencies:
+              b "^1.0.0 || ^2.0.0"
+              c "^1.0.0"
+
+          "b@^1.0.0 || ^2.0.0":
+            version "2.0.0"
+
+          c@^1.0.0:
+            version "1.0.0"
+          """;
+        //language=json
+        String packageJson = """
+          {
+            "name": "example",
+            "dependencies": {
+              "a": "^1.0.0",
+              "b": "^1.0.0 || ^2.0.0"
+            }
+          }
+          """;
+        NodeResolutionResult resolution = NodeResolutionResult.fromYarnLock(new StringReader(yarnLock),
+          (Json.Document) JsonParser.builder().build().parse(packageJson).findFirst().orElseThrow());
+
+        assertThat(resolution.getDependencies()).extracting(Dependency::getName).containsExactly("a");
+        ResolvedDependency a = requireNonNull(requireNonNull(resolution.getDependency("a")).getResolved());
+        assertThat(a.getDependencies()).extracting(Dependency::getName).containsExactly("c");
+        assertThat(resolution.getResolvedNames()).containsExactly("a", "c");
+    }
+
+    private static void assertResolvesLikeNestedLockfile(NodeResolutionResult nodeResolutionResult) {
+        ResolvedDependency a = requireNonNull(requireNonNull(nodeResolutionResult.getDependency("a")).getResolved());
+        ResolvedDependency b1 = requireNonNull(a.getDependencies().get(0).getResolved());
+        assertThat(b1.getVersion()).isEqualTo("1.1.0");
+        ResolvedDependency c = requireNonNull(b1.getDependencies().get(0).getResolved());
+        assertThat(c.getName()).isEqualTo("@scope/c");
+
+        assertThat(nodeResolutionResult.getResolved("b"))
+          .extracting(ResolvedDependency::getVersion)
+          .containsExactlyInAnyOrder("2.0.0", "1.1.0");
+        assertThat(nodeResolutionResult.getResolvedNames()).containsExactly("@scope/c", "a", "b");
+        assertThat(nodeResolutionResult.getDepth(c)).isEqualTo(2);
+        assertThat(nodeResolutionResult.getDevDependencies()).isEmpty();
+    }
+
+    private static Json.Document packageJson() {
+        //language=json
+        String packageJson = """
+          {
+            "name": "example",
+            "dependencies": {
+              "a": "^1.0.0",
+              "b": "^2.0.0"
+            }
+          }
+          """;
+        return (Json.Document) JsonParser.builder().build().parse(packageJson).findFirst().orElseThrow();
+    }
+
+    private static NodeResolutionResult nested() {
+        //language=json
+        String lockfile = """
+          {
+            "lockfileVersion": 3,
+            "packages": {
+              "": {
+                "dependencies": {
+                  "a": "^1.0.0",
+                  "b": "^2.0.0"
+                }
+              },
+              "node_modules/a": {
+                "version": "1.0.0",
+                "dependencies": {
+                  "b": "^1.0.0"
+                }
+              },
+              "node_modules/a/node_modules/b": {
+                "version": "1.1.0",
+                "dependencies": {
+                  "c": "^1.0.0"
+                }
+              },
+              "node_modules/b": {
+                "version": "2.0.0"
+              },
+              "node_modules/c": {
+                "version": "1.0.0"
+              }
+            }
+          }
+          """;
+        return NodeResolutionResult.fromPackageLockJson(new ByteArrayInputStream(lockfile.getBytes(StandardCharsets.UTF_8)));
+    }
 }
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.TreeVisitor;
+import org.openrewrite.json.JsonParser;
+import org.openrewrite.json.tree.Json;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Fails the build when a hot path allocates more, or takes longer, than its budget in
+ * {@code performance-budgets.properties}. Unlike the JMH benchmarks, which measure, these only guard:
+ * a regression such as constructing a {@code JsonMapper} per call shows up here as allocated bytes long
+ * before it shows up in production.
+ * <p>
+ * Timings depend on the machine and whatever else runs on it, so these aren't part of {@code test}; run them
+ * with {@code ./gradlew performanceTest}.
+ */
+@Tag("performance")
+class PerformanceBudgetTest {
+    private static final int PACKAGES = 10_000;
+    private static final int WARMUP = 5;
+    private static final int REPETITIONS = 5;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static Properties budgets;
+    private static Measurement calibration;
+
+    private static byte[] lockfileBytes;
+    private static Json.Document lockfile;
+    private static Json.Document packageJson;
+
+    private static long sink;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        assumeTrue(THREADS.isThreadAllocatedMemorySupported() && THREADS.isThreadAllocatedMemoryEnabled(),
+          "Thread allocation counters are unavailable on this JVM");
+
+        budgets = new Properties();
+        try (InputStream is = PerformanceBudgetTest.class.getResourceAsStream("performance-budgets.properties")) {
+            budgets.load(Objects.requireNonNull(is));
+        }
+
+        LockfileGenerator.Project project = new LockfileGenerator(42)
+          .packages(PACKAGES)
+          .vulnerable(0.01)
+          .generate("example");
+        lockfileBytes = project.getPackageLockJson().getBytes(StandardCharsets.UTF_8);
+        lockfile = parse(project.getPackageLockJson()).withSourcePath(Paths.get("package-lock.json"));
+
+        // a package.json with as many direct dependencies as there are packages in the lockfile
+        LockfileGenerator.Project flat = new LockfileGenerator(42)
+          .packages(PACKAGES)
+          .directDependencies(PACKAGES)
+          .generate("example");
+        packageJson = parse(flat.getPackageJson()).withSourcePath(Paths.get("package.json"));
+
+        calibration = measure(PerformanceBudgetTest::calibrate);
+    }
+
+    @Test
+    void readLockfile() {
+        assertWithinBudget("readLockfile", PACKAGES, measure(() ->
+          NodeResolutionResult.fromPackageLockJson(new ByteArrayInputStream(lockfileBytes))));
+    }
+
+    @Test
+    void scanLockfile() {
+        DependencyVulnerabilityCheck recipe = new DependencyVulnerabilityCheck(null);
+        assertWithinBudget("scanLockfile", PACKAGES, measure(() -> {
+            // a fresh context, so that the lockfile is resolved rather than taken from the resolution cache
+            ExecutionContext ctx = new InMemoryExecutionContext();
+            recipe.getScanner(recipe.getInitialValue(ctx)).visit(lockfile, ctx);
+        }));
+    }
+
+    @Test
+    void generateReport() {
+        DependencyVulnerabilityCheck recipe = new DependencyVulnerabilityCheck(null);
+        ExecutionContext scanCtx = new InMemoryExecutionContext();
+        DependencyVulnerabilityCheck.Accumulator acc = recipe.getInitialValue(scanCtx);
+        recipe.getScanner(acc).visit(lockfile, scanCtx);
+        assertThat(acc.getProjects()).isNotEmpty();
+
+        assertWithinBudget("generateReport", PACKAGES, measure(() ->
+          recipe.generate(acc, firstCycle())));
+    }
+
+    @Test
+    void upgradeDependencies() {
+        TreeVisitor<?, ExecutionContext> visitor = new UpgradeDependencyVersion("pkg-1*", "^99.0.0").getVisitor();
+        assertWithinBudget("upgradeDependencies", PACKAGES, measure(() ->
+          visitor.visit(packageJson, new InMemoryExecutionContext())));
+    }
+
+    private static void assertWithinBudget(String path, int packages, Measurement measurement) {
+        long bytesPerPackage = measurement.bytes / packages;
+        double timeRatio = (double) measurement.nanos / calibration.nanos;
+        assertThat(bytesPerPackage)
+          .as("bytes allocated per package by %s, see performance-budgets.properties", path)
+          .isLessThanOrEqualTo(Long.parseLong(budgets.getProperty(path + ".bytesPerPackage")));
+        assertThat(timeRatio)
+          .as("time of %s relative to the calibration loop, see performance-budgets.properties", path)
+          .isLessThanOrEqualTo(Double.parseDouble(budgets.getProperty(path + ".timeRatio")));
+    }
+
+    /**
+     * @return The least allocation and the least wall time of several repetitions after warming up. The least
+     * of each is the one least disturbed by garbage collection, compilation and other processes.
+     */
+    private static Measurement measure(Runnable work) {
+        for (int i = 0; i < WARMUP; i++) {
+            work.run();
+        }
+        long thread = Thread.currentThread().getId();
+        long bytes = Long.MAX_VALUE;
+        long nanos = Long.MAX_VALUE;
+        for (int i = 0; i < REPETITIONS; i++) {
+            long allocatedBefore = THREADS.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            work.run();
+            nanos = Math.min(nanos, System.nanoTime() - start);
+            bytes = Math.min(bytes, THREADS.getThreadAllocatedBytes(thread) - allocatedBefore);
+        }
+        return new Measurement(bytes, nanos);
+    }
+
+    /**
+     * Hashing, boxing and sorting, much like the work of the paths under test.
+     */
+    private static void calibrate() {
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            counts.merge(i * 31 % 50_000, i, Integer::sum);
+        }
+        int[] values = new int[200_000];
+        Random random = new Random(1);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt();
+        }
+        Arrays.sort(values);
+        sink += counts.size() + values[0];
+    }
+
+    /**
+     * @return A context in the first cycle of a recipe run, the only cycle in which data tables accept rows.
+     */
+    private static ExecutionContext firstCycle() {
+        return new InMemoryExecutionContext() {
+            @Override
+            public int getCycle() {
+                return 1;
+            }
+        };
+    }
+
+    private static Json.Document parse(String json) {
+        return (Json.Document) JsonParser.builder().build().parse(json).findFirst().orElseThrow();
+    }
+
+    private static class Measurement {
+        final long bytes;
+        final long nanos;
+
+        Measurement(long bytes, long nanos) {
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs.internal;
+
+import org.junit.jupiter.api.Test;
+import org.openrewrite.nodejs.Vulnerability;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdvisoryIndexTest {
+
+    @Test
+    void roundTripsEveryAdvisory() throws IOException {
+        List<Vulnerability> csv;
+        try (InputStream is = getClass().getResourceAsStream("/advisories-npm.csv")) {
+            csv = AdvisoryIndexCompiler.readCsv(is);
+        }
+        Map<String, List<Vulnerability>> expected = new LinkedHashMap<>();
+        for (Vulnerability v : csv) {
+            expected.computeIfAbsent(v.getPackageName(), n -> new ArrayList<>()).add(v);
+        }
+
+        AdvisoryIndex index = AdvisoryIndex.read(ByteBuffer.wrap(AdvisoryIndexCompiler.compile(csv)));
+        assertThat(index.getAdvisoryCount()).isEqualTo(csv.size());
+        assertThat(index.getPackageCount()).isEqualTo(expected.size());
+        expected.forEach((name, advisories) -> assertThat(index.getAdvisories(name))
+          .usingRecursiveFieldByFieldElementComparatorIgnoringFields("published")
+          .containsExactlyElementsOf(advisories));
+    }
+
+    @Test
+    void decodesFieldsOfPrecompiledIndex() {
+        AdvisoryIndex index = AdvisoryIndex.load();
+        assertThat(index.getAdvisories("dojo"))
+          .hasSize(13)
+          .first()
+          .satisfies(v -> {
+              assertThat(v.getCve()).isEqualTo("CVE-2008-6681");
+              assertThat(v.getPublished().toString()).startsWith("2020-09-01T15:25:29");
+              assertThat(v.getSummary()).isEqualTo("Cross-Site Scripting in dojo");
+              assertThat(v.getIntroducedVersion()).isEqualTo("0");
+              assertThat(v.getFixedVersion()).isEqualTo("1.1.0");
+              assertThat(v.getSeverity()).isEqualTo(Vulnerability.Severity.MODERATE);
+              assertThat(v.getCwes()).isEqualTo("CWE-79");
+          });
+        assertThat(index.getAdvisories("not-a-vulnerable-package")).isEmpty();
+    }
+
+    @Test
+    void onlyAdvisoriesCoveringVersion() {
+        AdvisoryIndex index = AdvisoryDatabase.get();
+        assertThat(index.getAdvisories("dojo", "1.13.0"))
+          .extracting(v -> v.getCve() + " " + v.getIntroducedVersion() + "-" + v.getFixedVersion())
+          .containsExactly(
+            "CVE-2010-2273 1.13.0-1.13.1",
+            "CVE-2020-5258 1.13.0-1.13.7",
+            "CVE-2021-23450 0-"
+          );
+        assertThat(index.getAdvisories("lodash", "3.6.0"))
+          .extracting(Vulnerability::getCve)
+          .doesNotContain("CVE-2020-8203");
+        assertThat(index.getAdvisories("lodash", "4.17.21"))
+          .extracting(Vulnerability::getCve)
+          .containsExactly("CVE-2021-41720");
+    }
+
+    @Test
+    void sharedDatabaseIsLoadedOnce() {
+        AdvisoryDatabase.release();
+        int loads = AdvisoryDatabase.getLoadCount();
+        AdvisoryIndex index = AdvisoryDatabase.get();
+        assertThat(AdvisoryDatabase.get()).isSameAs(index);
+        assertThat(AdvisoryDatabase.getLoadCount()).isEqualTo(loads + 1);
+        assertThat(AdvisoryDatabase.getLoadTime()).isPositive();
+
+        index.getAdvisories("dojo");
+        assertThat(AdvisoryDatabase.getResidentSize()).isPositive();
+    }
+}
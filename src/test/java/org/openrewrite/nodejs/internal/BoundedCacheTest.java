@@ -0,0 +1,72 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs.internal;
+
+import org.junit.jupiter.api.Test;
+import org.openrewrite.Validated;
+import org.openrewrite.semver.VersionComparator;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedCacheTest {
+
+    @Test
+    void computesEachKeyOnce() {
+        BoundedCache<String, Integer> cache = new BoundedCache<>(1024);
+        AtomicInteger computations = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            assertThat(cache.computeIfAbsent("^4.17.21", r -> computations.incrementAndGet())).isEqualTo(1);
+        }
+        assertThat(computations).hasValue(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    void neverExceedsMaximumSize() {
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(64);
+        for (int i = 0; i < 10_000; i++) {
+            cache.computeIfAbsent(i, k -> k);
+        }
+        assertThat(cache.size()).isLessThanOrEqualTo(64);
+        assertThat(cache.getEvictionCount()).isEqualTo(10_000 - cache.size());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        // a single entry per stripe
+        BoundedCache<Integer, Integer> cache = new BoundedCache<>(16);
+        int sameStripe = 1;
+        while (BoundedCache.stripeIndex(sameStripe) != BoundedCache.stripeIndex(0)) {
+            sameStripe++;
+        }
+        cache.computeIfAbsent(0, k -> k);
+        cache.computeIfAbsent(sameStripe, k -> k);
+        assertThat(cache.getIfPresent(0)).isNull();
+        assertThat(cache.getIfPresent(sameStripe)).isEqualTo(sameStripe);
+    }
+
+    @Test
+    void cachesInvalidRanges() {
+        Validated<VersionComparator> invalid = VersionRangeCache.validate("^6.5.3 || ^7.4.0");
+        assertThat(invalid.isValid()).isFalse();
+        long misses = VersionRangeCache.getMissCount();
+        assertThat(VersionRangeCache.validate("^6.5.3 || ^7.4.0")).isSameAs(invalid);
+        assertThat(VersionRangeCache.getMissCount()).isEqualTo(misses);
+    }
+}
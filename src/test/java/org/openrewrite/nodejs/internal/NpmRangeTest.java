@@ -0,0 +1,103 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs.internal;
+
+import org.junit.jupiter.api.Test;
+
+import static java.util.Objects.requireNonNull;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NpmRangeTest {
+    private final VersionParser versionParser = new VersionParser();
+
+    @Test
+    void caretAndTilde() {
+        assertAdmits("^1.2.3", "1.2.3", "1.9.9").doesNotAdmit("1.2.2", "2.0.0");
+        assertAdmits("^0.2.3", "0.2.9").doesNotAdmit("0.3.0");
+        assertAdmits("^0.0.3", "0.0.3").doesNotAdmit("0.0.4");
+        assertAdmits("~1.2.3", "1.2.9").doesNotAdmit("1.3.0");
+        assertAdmits("~1", "1.9.0").doesNotAdmit("2.0.0");
+    }
+
+    @Test
+    void partialsAndWildcards() {
+        assertAdmits("1.x", "1.0.0", "1.3.0").doesNotAdmit("2.0.0");
+        assertAdmits("1.2", "1.2.5").doesNotAdmit("1.3.0");
+        assertAdmits("*", "0.0.1", "9.9.9");
+        assertAdmits("", "0.0.1");
+        assertAdmits("1.2.3", "1.2.3").doesNotAdmit("1.2.4");
+    }
+
+    @Test
+    void comparisonsHyphensAndUnions() {
+        assertAdmits(">=1.2.3 <2", "1.2.3", "1.9.9").doesNotAdmit("2.0.0");
+        assertAdmits(">= 1.2.3", "1.2.3");
+        assertAdmits(">1.2", "1.3.0").doesNotAdmit("1.2.9");
+        assertAdmits("<=1.2", "1.2.9").doesNotAdmit("1.3.0");
+        assertAdmits("1.2.3 - 2.3", "1.2.3", "2.3.9").doesNotAdmit("1.2.2", "2.4.0");
+        assertAdmits("^1.0.0 || ^3.0.0", "1.1.0", "3.1.0").doesNotAdmit("2.1.0");
+    }
+
+    @Test
+    void qualifiersDoNotCompile() {
+        assertThat(NpmRange.compile("^1.2.3-beta.1")).isNull();
+        assertThat(NpmRange.compile("latest")).isNull();
+        assertThat(NpmRange.compile("npm:lodash@^4.0.0")).isNull();
+    }
+
+    @Test
+    void minimum() {
+        assertThat(requireNonNull(NpmRange.compile("^2.0.0 || ~1.4.2")).getMinimum()).isEqualTo(packed("1.4.2"));
+        assertThat(requireNonNull(NpmRange.compile("<0.0.0")).getMinimum()).isEqualTo(-1);
+    }
+
+    @Test
+    void patchUpdates() {
+        NpmRange patchUpdates = NpmRange.patchUpdatesOf(packed("1.10.5"));
+        assertThat(patchUpdates.admits(packed("1.10.10"))).isTrue();
+        assertThat(patchUpdates.admits(packed("1.10.5"))).isFalse();
+        assertThat(patchUpdates.admits(packed("1.11.0"))).isFalse();
+    }
+
+    private long packed(String version) {
+        return versionParser.transform(version).getPacked();
+    }
+
+    private Admits assertAdmits(String range, String... versions) {
+        NpmRange compiled = NpmRange.compile(range);
+        assertThat(compiled).as(range).isNotNull();
+        for (String version : versions) {
+            assertThat(compiled.admits(packed(version))).as(range + " admits " + version).isTrue();
+        }
+        return new Admits(range, compiled);
+    }
+
+    private class Admits {
+        private final String range;
+        private final NpmRange compiled;
+
+        Admits(String range, NpmRange compiled) {
+            this.range = range;
+            this.compiled = compiled;
+        }
+
+        void doesNotAdmit(String... versions) {
+            for (String version : versions) {
+                assertThat(compiled.admits(packed(version))).as(range + " does not admit " + version).isFalse();
+            }
+        }
+    }
+}
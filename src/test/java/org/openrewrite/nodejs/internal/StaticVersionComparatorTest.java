@@ -0,0 +1,48 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StaticVersionComparatorTest {
+    private final VersionParser versionParser = new VersionParser();
+    private final StaticVersionComparator comparator = new StaticVersionComparator();
+
+    @Test
+    void ordersQualifiersBySpecialMeaning() {
+        List<String> versions = new ArrayList<>(List.of("1.0.0", "1.0.0-rc1", "1.0.0-final", "1.0", "1.0.0.1", "2.0.0",
+          "1.10.10", "1.9.1", "1.0.0-beta", "1.0.0-dev", "10.0.0", "1.0.0-SNAPSHOT"));
+        Collections.shuffle(versions);
+        versions.sort((v1, v2) -> comparator.compare(versionParser.transform(v1), versionParser.transform(v2)));
+        assertThat(versions).containsExactly("1.0", "1.0.0-dev", "1.0.0-beta", "1.0.0-rc1", "1.0.0-SNAPSHOT",
+          "1.0.0-final", "1.0.0", "1.0.0.1", "1.9.1", "1.10.10", "2.0.0", "10.0.0");
+    }
+
+    @Test
+    void packsPlainVersions() {
+        assertThat(versionParser.transform("1.10.10").getPacked()).isPositive();
+        assertThat(versionParser.transform("1.0.0-rc1").getPacked()).isEqualTo(-1);
+        assertThat(versionParser.transform("99999999.0.0").getPacked()).isEqualTo(-1);
+        // a packed and an unpacked version still compare by their parts
+        assertThat(comparator.compare(versionParser.transform("99999999.0.0"), versionParser.transform("1.0.0"))).isPositive();
+    }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs.internal;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VersionParserTest {
+
+    @Test
+    void parsedVersionsAreSharedBetweenParsers() {
+        Version version = new VersionParser().transform("4.17.21");
+        assertThat(new VersionParser().transform("4.17.21")).isSameAs(version);
+        assertThat(VersionParser.getCacheHitRate()).isPositive();
+        assertThat(VersionParser.getCacheSize()).isPositive();
+    }
+}
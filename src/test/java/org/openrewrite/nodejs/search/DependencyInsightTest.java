@@ -20,6 +20,7 @@ import org.openrewrite.DocumentExample;
 import org.openrewrite.test.RewriteTest;
 
 import static org.openrewrite.json.Assertions.json;
+import static org.openrewrite.test.SourceSpecs.text;
 
 class DependencyInsightTest implements RewriteTest {
 
@@ -99,4 +100,207 @@ class DependencyInsightTest implements RewriteTest {
           )
         );
     }
+
+    @Test
+    void resolvedByYarnLock() {
+        rewriteRun(
+          spec -> spec.recipe(new DependencyInsight("lodash*", null, false)),
+          text(
+            """
+              # yarn lockfile v1
+
+
+              jwt-decode@^4.0.0:
+                version "4.0.0"
+
+              lodash.camelcase@^4.3.0:
+                version "4.3.0"
+
+              lodash.kebabcase@^4.1.0:
+                version "4.1.1"
+              """,
+            spec -> spec.path("yarn.lock")
+          ),
+          json(
+            //language=json
+            """
+              {
+                "name": "example",
+                "version": "1.0.0",
+                "dependencies": {
+                  "jwt-decode": "^4.0.0",
+                  "lodash.camelcase": "^4.3.0",
+                  "lodash.kebabcase": "^4.1.0"
+                }
+              }
+              """,
+            //language=json
+            """
+              {
+                "name": "example",
+                "version": "1.0.0",
+                "dependencies": {
+                  "jwt-decode": "^4.0.0",
+                  /*~~(4.3.0)~~>*/"lodash.camelcase": "^4.3.0",
+                  /*~~(4.1.1)~~>*/"lodash.kebabcase": "^4.1.0"
+                }
+              }
+              """,
+            spec -> spec.path("package.json")
+          )
+        );
+    }
+
+    @Test
+    void workspaceResolvedByRootPackageLock() {
+        rewriteRun(
+          spec -> spec.recipe(new DependencyInsight("lodash*", null, false)),
+          json(
+            //language=json
+            """
+              {
+                "name": "root",
+                "version": "1.0.0",
+                "lockfileVersion": 3,
+                "requires": true,
+                "packages": {
+                  "": {
+                    "name": "root",
+                    "version": "1.0.0",
+                    "workspaces": [
+                      "packages/*"
+                    ]
+                  },
+                  "node_modules/a": {
+                    "resolved": "packages/a",
+                    "link": true
+                  },
+                  "node_modules/lodash.camelcase": {
+                    "version": "4.3.0"
+                  },
+                  "node_modules/lodash.kebabcase": {
+                    "version": "4.1.1"
+                  },
+                  "packages/a": {
+                    "version": "1.0.0",
+                    "dependencies": {
+                      "lodash.camelcase": "^4.3.0"
+                    },
+                    "devDependencies": {
+                      "lodash.kebabcase": "^4.0.0"
+                    }
+                  },
+                  "packages/a/node_modules/lodash.kebabcase": {
+                    "version": "4.0.1"
+                  }
+                }
+              }
+              """,
+            spec -> spec.path("package-lock.json")
+          ),
+          json(
+            //language=json
+            """
+              {
+                "name": "a",
+                "version": "1.0.0",
+                "dependencies": {
+                  "lodash.camelcase": "^4.3.0"
+                },
+                "devDependencies": {
+                  "lodash.kebabcase": "^4.0.0"
+                }
+              }
+              """,
+            //language=json
+            """
+              {
+                "name": "a",
+                "version": "1.0.0",
+                "dependencies": {
+                  /*~~(4.3.0)~~>*/"lodash.camelcase": "^4.3.0"
+                },
+                "devDependencies": {
+                  /*~~(4.0.1)~~>*/"lodash.kebabcase": "^4.0.0"
+                }
+              }
+              """,
+            spec -> spec.path("packages/a/package.json")
+          ),
+          json(
+            //language=json
+            """
+              {
+                "name": "unrelated",
+                "version": "1.0.0",
+                "dependencies": {
+                  "lodash.camelcase": "^4.3.0"
+                }
+              }
+              """,
+            //language=json
+            """
+              {
+                "name": "unrelated",
+                "version": "1.0.0",
+                "dependencies": {
+                  /*~~()~~>*/"lodash.camelcase": "^4.3.0"
+                }
+              }
+              """,
+            spec -> spec.path("tools/unrelated/package.json")
+          )
+        );
+    }
+
+    @Test
+    void workspaceResolvedByRootYarnLock() {
+        rewriteRun(
+          spec -> spec.recipe(new DependencyInsight("lodash*", null, false)),
+          text(
+            """
+              __metadata:
+                version: 6
+
+              "a@workspace:packages/a":
+                version: 0.0.0-use.local
+                resolution: "a@workspace:packages/a"
+                dependencies:
+                  lodash.camelcase: ^4.3.0
+
+              "lodash.camelcase@npm:^4.3.0":
+                version: 4.3.0
+                resolution: "lodash.camelcase@npm:4.3.0"
+
+              "root@workspace:.":
+                version: 0.0.0-use.local
+                resolution: "root@workspace:."
+              """,
+            spec -> spec.path("yarn.lock")
+          ),
+          json(
+            //language=json
+            """
+              {
+                "name": "a",
+                "version": "1.0.0",
+                "dependencies": {
+                  "lodash.camelcase": "^4.3.0"
+                }
+              }
+              """,
+            //language=json
+            """
+              {
+                "name": "a",
+                "version": "1.0.0",
+                "dependencies": {
+                  /*~~(4.3.0)~~>*/"lodash.camelcase": "^4.3.0"
+                }
+              }
+              """,
+            spec -> spec.path("packages/a/package.json")
+          )
+        );
+    }
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs.search;
+
+import org.junit.jupiter.api.Test;
+import org.openrewrite.DocumentExample;
+import org.openrewrite.nodejs.table.CategorizedDependencies;
+import org.openrewrite.nodejs.table.DependenciesInUse;
+import org.openrewrite.test.RewriteTest;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.openrewrite.json.Assertions.json;
+
+class DependencyInsightsTest implements RewriteTest {
+
+    @DocumentExample
+    @Test
+    void matchesExactAndPrefixPatterns() {
+        //noinspection JsonStandardCompliance
+        rewriteRun(
+          spec -> spec
+            .recipe(new DependencyInsights(Map.of(
+              "Utility", List.of("jwt-decode", "lodash.*", "@types/*"),
+              "Security", List.of("jwt-*"))))
+            .dataTable(DependenciesInUse.Row.class, rows -> assertThat(rows)
+              .extracting(row -> row.getName() + "@" + row.getVersion())
+              .containsExactlyInAnyOrder(
+                "jwt-decode@4.0.0",
+                "lodash.camelcase@4.3.0"
+              ))
+            .dataTable(CategorizedDependencies.Row.class, rows -> assertThat(rows)
+              .extracting(row -> row.getCategory() + " " + row.getName() + "@" + row.getVersion())
+              .containsExactlyInAnyOrder(
+                "Utility jwt-decode@4.0.0",
+                "Security jwt-decode@4.0.0",
+                "Utility lodash.camelcase@4.3.0"
+              )),
+          json(
+            //language=json
+            """
+              {
+                "name": "example",
+                "version": "1.0.0",
+                "dependencies": {
+                  "jwt-decode": "^4.0.0",
+                  "lodash.camelcase": "^4.3.0",
+                  "lodash": "^4.17.21"
+                }
+              }
+              """,
+            //language=json
+            """
+              {
+                "name": "example",
+                "version": "1.0.0",
+                "dependencies": {
+                  /*~~(4.0.0)~~>*/"jwt-decode": "^4.0.0",
+                  /*~~(4.3.0)~~>*/"lodash.camelcase": "^4.3.0",
+                  "lodash": "^4.17.21"
+                }
+              }
+              """,
+            spec -> spec.path("package.json")
+          ),
+          json(
+            //language=json
+            """
+              {
+                "name": "example",
+                "version": "1.0.0",
+                "lockfileVersion": 3,
+                "requires": true,
+                "packages": {
+                  "": {
+                    "name": "example",
+                    "version": "1.0.0",
+                    "dependencies": {
+                      "jwt-decode": "^4.0.0",
+                      "lodash.camelcase": "^4.3.0",
+                      "lodash": "^4.17.21"
+                    }
+                  },
+                  "node_modules/jwt-decode": {
+                    "version": "4.0.0"
+                  },
+                  "node_modules/lodash": {
+                    "version": "4.17.21"
+                  },
+                  "node_modules/lodash.camelcase": {
+                    "version": "4.3.0"
+                  }
+                }
+              }
+              """,
+            spec -> spec.path("package-lock.json")
+          )
+        );
+    }
+
+    @Test
+    void categoriesOfTheInsightsSuite() {
+        //noinspection JsonStandardCompliance
+        rewriteRun(
+          spec -> spec
+            .recipeFromResources("org.openrewrite.nodejs.search.JavascriptLibraryInsights")
+            .dataTable(CategorizedDependencies.Row.class, rows -> assertThat(rows)
+              .extracting(row -> row.getCategory() + " " + row.getName())
+              .containsExactlyInAnyOrder(
+                "UI react",
+                "Utility uuid",
+                "Security uuid",
+                "Testing @testing-library/react"
+              )),
+          json(
+            //language=json
+            """
+              {
+                "name": "example",
+                "version": "1.0.0",
+                "dependencies": {
+                  "react": "^18.2.0",
+                  "uuid": "^9.0.1",
+                  "left-pad": "^1.3.0"
+                },
+                "devDependencies": {
+                  "@testing-library/react": "^14.1.2"
+                }
+              }
+              """,
+            //language=json
+            """
+              {
+                "name": "example",
+                "version": "1.0.0",
+                "dependencies": {
+                  /*~~()~~>*/"react": "^18.2.0",
+                  /*~~()~~>*/"uuid": "^9.0.1",
+                  "left-pad": "^1.3.0"
+                },
+                "devDependencies": {
+                  /*~~()~~>*/"@testing-library/react": "^14.1.2"
+                }
+              }
+              """,
+            spec -> spec.path("package.json")
+          )
+        );
+    }
+}
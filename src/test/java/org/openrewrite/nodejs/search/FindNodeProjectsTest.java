@@ -0,0 +1,99 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.openrewrite.nodejs.search;
+
+import org.junit.jupiter.api.Test;
+import org.openrewrite.nodejs.table.LockfileStatistics;
+import org.openrewrite.test.RecipeSpec;
+import org.openrewrite.test.RewriteTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.openrewrite.json.Assertions.json;
+
+class FindNodeProjectsTest implements RewriteTest {
+
+    //language=json
+    private static final String LOCKFILE = """
+      {
+        "name": "example",
+        "version": "1.0.0",
+        "lockfileVersion": 3,
+        "requires": true,
+        "packages": {
+          "": {
+            "name": "example",
+            "version": "1.0.0",
+            "dependencies": {
+              "a": "^1.0.0"
+            }
+          },
+          "node_modules/a": {
+            "version": "1.0.0",
+            "dependencies": {
+              "b": "^1.0.0"
+            }
+          },
+          "node_modules/a/node_modules/b": {
+            "version": "1.1.0",
+            "dependencies": {
+              "c": "^2.0.0"
+            }
+          },
+          "node_modules/c": {
+            "version": "2.0.0"
+          }
+        }
+      }
+      """;
+
+    @Override
+    public void defaults(RecipeSpec spec) {
+        spec.recipe(new FindNodeProjects());
+    }
+
+    @Test
+    void lockfileStatisticsOfResolvedLockfile() {
+        rewriteRun(
+          spec -> spec.recipes(new DependencyInsight("does-not-exist", null, false), new FindNodeProjects())
+            .dataTable(LockfileStatistics.Row.class, rows ->
+            assertThat(rows).singleElement().satisfies(row -> {
+                assertThat(row.getSourcePath()).isEqualTo("package-lock.json");
+                assertThat(row.getPackageCount()).isEqualTo(3);
+                assertThat(row.getMaxDepth()).isEqualTo(2);
+                assertThat(row.getLockfileVersion()).isEqualTo(3);
+                assertThat(row.getParseTime()).isPositive();
+                assertThat(row.getRetainedSizeEstimate()).isPositive();
+            })),
+          json(LOCKFILE, spec -> spec.path("package-lock.json"))
+        );
+    }
+
+    @Test
+    void lockfileStatisticsWhenRunAlone() {
+        rewriteRun(
+          spec -> spec.dataTable(LockfileStatistics.Row.class, rows ->
+            assertThat(rows).singleElement().satisfies(row -> {
+                assertThat(row.getSourcePath()).isEqualTo("package-lock.json");
+                assertThat(row.getLockfileVersion()).isEqualTo(3);
+                assertThat(row.getPackageCount()).isEqualTo(3);
+                assertThat(row.getMaxDepth()).isEqualTo(2);
+                assertThat(row.getParseTime()).isNotNull().isPositive();
+                assertThat(row.getRetainedSizeEstimate()).isPositive();
+            })),
+          json(LOCKFILE, spec -> spec.path("package-lock.json"))
+        );
+    }
+}